@@ -1,7 +1,10 @@
 package com.segunfamisa.demo.pinpad;
 
+import android.content.Intent;
 import android.os.Bundle;
+import android.text.Layout;
 import android.text.method.ScrollingMovementMethod;
+import android.view.View;
 import android.widget.TextView;
 
 import androidx.appcompat.app.AppCompatActivity;
@@ -22,6 +25,13 @@ public class MainActivity extends AppCompatActivity {
         textView = (TextView) findViewById(R.id.textView);
         textView.setMovementMethod(new ScrollingMovementMethod());
 
+        findViewById(R.id.buttonPerformance).setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                startActivity(new Intent(MainActivity.this, PerformanceActivity.class));
+            }
+        });
+
         pinpadView.setOnPinChangedListener(new PinPadView.OnPinChangedListener() {
             @Override
             public void onPinChanged(String oldPin, String newPin) {
@@ -46,10 +56,16 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void appendText(String text) {
-        String nl = (textView.getText().length() > 0 ? "\n" : "");
-        textView.setText(textView.getText() + nl + text);
-        while (textView.canScrollVertically(1)) {
-            textView.scrollBy(0, 10);
+        if (textView.length() > 0) {
+            textView.append("\n");
+        }
+        textView.append(text);
+        // scroll to the last line in one step
+        Layout layout = textView.getLayout();
+        if (layout != null) {
+            int bottom = layout.getLineTop(textView.getLineCount()) + textView.getTotalPaddingTop()
+                    + textView.getTotalPaddingBottom();
+            textView.scrollTo(0, Math.max(0, bottom - textView.getHeight()));
         }
     }
 
@@ -0,0 +1,378 @@
+package com.segunfamisa.demo.pinpad;
+
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Debug;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.view.Choreographer;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.Button;
+import android.widget.CheckBox;
+import android.widget.CompoundButton;
+import android.widget.FrameLayout;
+import android.widget.TextView;
+
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.core.view.ViewCompat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import co.paystack.android.design.widget.PinPadDiagnostics;
+import co.paystack.android.design.widget.PinPadView;
+
+/**
+ * Shows how a {@link PinPadView} performs under different settings: cold-start class loading,
+ * construction time, keystroke latency, layout passes and allocations per keystroke, and frame
+ * times. Build the appcompat and framework flavors to compare the two pinpad builds. The tap storm
+ * injects taps on random keys, one per frame, so runs can be compared across versions.
+ */
+@SuppressWarnings("deprecation")
+public class PerformanceActivity extends AppCompatActivity {
+
+    private static final int STORM_TAPS = 200;
+    private static final long STATS_INTERVAL_MS = 250;
+    private static final int[] PIN_LENGTHS = {4, 6, 8};
+    private static final long FRAME_NANOS = 16666667L;
+
+    /**
+     * Classes loaded and time taken by the first pinpad built in this process
+     */
+    private static int coldStartClasses = -1;
+    private static double coldStartMs;
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Random random = new Random();
+
+    private FrameLayout pinpadContainer;
+    private TextView statsView;
+    private CheckBox randomCheck;
+    private CheckBox liteCheck;
+    private CheckBox autoSizeCheck;
+    private Button pinLengthButton;
+    private Button tapStormButton;
+    private PinPadView pinpadView;
+    private int pinLengthIndex;
+
+    private double constructionMs;
+    private long inputDispatchNanos;
+    private long inputQueueMs;
+    private int keystrokes;
+    private double latencyTotalMs;
+    private double latencyMaxMs;
+    private long allocations;
+    private PinPadDiagnostics.Snapshot diagnosticsBaseline;
+    private int gcBaseline;
+
+    private int frameCount;
+    private long frameTotalNanos;
+    private long frameMaxNanos;
+    private int jankFrames;
+    private long lastFrameNanos;
+    private boolean monitoringFrames;
+
+    private final List<View> stormTargets = new ArrayList<>();
+    private int stormRemaining;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_performance);
+
+        pinpadContainer = (FrameLayout) findViewById(R.id.pinpadContainer);
+        statsView = (TextView) findViewById(R.id.textStats);
+        randomCheck = (CheckBox) findViewById(R.id.checkRandom);
+        liteCheck = (CheckBox) findViewById(R.id.checkLite);
+        autoSizeCheck = (CheckBox) findViewById(R.id.checkAutoSize);
+        pinLengthButton = (Button) findViewById(R.id.buttonPinLength);
+        tapStormButton = (Button) findViewById(R.id.buttonTapStorm);
+
+        CompoundButton.OnCheckedChangeListener rebuildListener = new CompoundButton.OnCheckedChangeListener() {
+            @Override
+            public void onCheckedChanged(CompoundButton buttonView, boolean isChecked) {
+                rebuildPinPad();
+            }
+        };
+        randomCheck.setOnCheckedChangeListener(rebuildListener);
+        liteCheck.setOnCheckedChangeListener(rebuildListener);
+        autoSizeCheck.setOnCheckedChangeListener(rebuildListener);
+
+        pinLengthButton.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                pinLengthIndex = (pinLengthIndex + 1) % PIN_LENGTHS.length;
+                rebuildPinPad();
+            }
+        });
+        findViewById(R.id.buttonRebuild).setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                rebuildPinPad();
+            }
+        });
+        tapStormButton.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                startTapStorm();
+            }
+        });
+
+        rebuildPinPad();
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        Debug.startAllocCounting();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            monitoringFrames = true;
+            lastFrameNanos = 0;
+            Choreographer.getInstance().postFrameCallback(frameCallback);
+        }
+        handler.post(statsUpdater);
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        stormRemaining = 0;
+        monitoringFrames = false;
+        handler.removeCallbacks(statsUpdater);
+        Debug.stopAllocCounting();
+    }
+
+    @Override
+    public boolean dispatchTouchEvent(MotionEvent ev) {
+        if (ev.getActionMasked() == MotionEvent.ACTION_UP) {
+            // keys commit on up, latency runs from the event time to the pin event
+            inputQueueMs = SystemClock.uptimeMillis() - ev.getEventTime();
+            inputDispatchNanos = System.nanoTime();
+        }
+        int allocBefore = Debug.getThreadAllocCount();
+        boolean handled = super.dispatchTouchEvent(ev);
+        allocations += Debug.getThreadAllocCount() - allocBefore;
+        return handled;
+    }
+
+    /**
+     * Builds a new pinpad with the current settings, timing its construction
+     */
+    private void rebuildPinPad() {
+        stormRemaining = 0;
+        if (pinpadView != null) {
+            pinpadContainer.removeView(pinpadView);
+        }
+        int pinLength = PIN_LENGTHS[pinLengthIndex];
+        pinLengthButton.setText(getString(R.string.perf_pin_length, pinLength));
+
+        boolean coldStart = coldStartClasses < 0;
+        int classesBefore = coldStart ? Debug.getLoadedClassCount() : 0;
+        long start = System.nanoTime();
+        PinPadView view = new PinPadView(this);
+        if (coldStart) {
+            coldStartMs = (System.nanoTime() - start) / 1e6;
+            coldStartClasses = Debug.getLoadedClassCount() - classesBefore;
+        }
+        view.setPlaceDigitsRandomly(randomCheck.isChecked());
+        view.setRenderProfile(liteCheck.isChecked()
+                ? PinPadView.RENDER_PROFILE_LITE : PinPadView.RENDER_PROFILE_FULL);
+        view.setAutoSizeText(autoSizeCheck.isChecked());
+        view.setPinLength(pinLength);
+        view.setPromptText(getString(R.string.perf_prompt));
+        constructionMs = (System.nanoTime() - start) / 1e6;
+
+        view.setVibrateOnIncompleteSubmit(false);
+        view.getDiagnostics().setEnabled(true);
+        view.addOnPinEventListener(pinEventListener, false);
+        view.setOnSubmitListener(new PinPadView.OnSubmitListener() {
+            @Override
+            public void onCompleted(String pin) {
+                pinpadView.clear();
+            }
+
+            @Override
+            public void onIncompleteSubmit(String pin) {
+            }
+        });
+        pinpadView = view;
+        pinpadContainer.addView(view, new FrameLayout.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+        resetStats();
+    }
+
+    private void resetStats() {
+        keystrokes = 0;
+        latencyTotalMs = 0;
+        latencyMaxMs = 0;
+        allocations = 0;
+        inputDispatchNanos = 0;
+        pinpadView.getDiagnostics().reset();
+        diagnosticsBaseline = pinpadView.getDiagnostics().snapshot();
+        gcBaseline = getGcCount();
+        frameCount = 0;
+        frameTotalNanos = 0;
+        frameMaxNanos = 0;
+        jankFrames = 0;
+    }
+
+    private final PinPadView.OnPinEventListener pinEventListener = new PinPadView.OnPinEventListener() {
+        @Override
+        public void onPinEvent(int type, int length, long timestampNanos) {
+            if (inputDispatchNanos == 0) {
+                // not caused by a tap, e.g. the clear after a submit
+                return;
+            }
+            double latencyMs = inputQueueMs + (timestampNanos - inputDispatchNanos) / 1e6;
+            inputDispatchNanos = 0;
+            keystrokes++;
+            latencyTotalMs += latencyMs;
+            latencyMaxMs = Math.max(latencyMaxMs, latencyMs);
+        }
+    };
+
+    private void startTapStorm() {
+        stormTargets.clear();
+        collectKeys(pinpadView, stormTargets);
+        if (stormTargets.isEmpty()) {
+            return;
+        }
+        resetStats();
+        stormRemaining = STORM_TAPS;
+        ViewCompat.postOnAnimation(pinpadView, stormTap);
+    }
+
+    /**
+     * Collects the clickable views of the keypad, i.e. its keys
+     */
+    private static void collectKeys(View view, List<View> keys) {
+        if (view.getVisibility() != View.VISIBLE) {
+            return;
+        }
+        if (view.isClickable()) {
+            keys.add(view);
+            return;
+        }
+        if (view instanceof ViewGroup) {
+            ViewGroup group = (ViewGroup) view;
+            for (int i = 0; i < group.getChildCount(); i++) {
+                collectKeys(group.getChildAt(i), keys);
+            }
+        }
+    }
+
+    /**
+     * Taps one random key per frame until the storm is over
+     */
+    private final Runnable stormTap = new Runnable() {
+        private final int[] pinpadLocation = new int[2];
+        private final int[] keyLocation = new int[2];
+
+        @Override
+        public void run() {
+            if (stormRemaining <= 0) {
+                return;
+            }
+            stormRemaining--;
+            View key = stormTargets.get(random.nextInt(stormTargets.size()));
+            pinpadView.getLocationInWindow(pinpadLocation);
+            key.getLocationInWindow(keyLocation);
+            float x = keyLocation[0] - pinpadLocation[0] + key.getWidth() / 2f;
+            float y = keyLocation[1] - pinpadLocation[1] + key.getHeight() / 2f;
+
+            long now = SystemClock.uptimeMillis();
+            int allocBefore = Debug.getThreadAllocCount();
+            MotionEvent down = MotionEvent.obtain(now, now, MotionEvent.ACTION_DOWN, x, y, 0);
+            pinpadView.dispatchTouchEvent(down);
+            down.recycle();
+            MotionEvent up = MotionEvent.obtain(now, now, MotionEvent.ACTION_UP, x, y, 0);
+            inputQueueMs = 0;
+            inputDispatchNanos = System.nanoTime();
+            pinpadView.dispatchTouchEvent(up);
+            up.recycle();
+            allocations += Debug.getThreadAllocCount() - allocBefore;
+
+            if (stormRemaining > 0) {
+                ViewCompat.postOnAnimation(pinpadView, this);
+            }
+        }
+    };
+
+    private final Choreographer.FrameCallback frameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (!monitoringFrames) {
+                return;
+            }
+            if (lastFrameNanos != 0) {
+                long frameNanos = frameTimeNanos - lastFrameNanos;
+                frameCount++;
+                frameTotalNanos += frameNanos;
+                frameMaxNanos = Math.max(frameMaxNanos, frameNanos);
+                if (frameNanos > FRAME_NANOS * 3 / 2) {
+                    jankFrames++;
+                }
+            }
+            lastFrameNanos = frameTimeNanos;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    };
+
+    private final Runnable statsUpdater = new Runnable() {
+        @Override
+        public void run() {
+            updateStats();
+            handler.postDelayed(this, STATS_INTERVAL_MS);
+        }
+    };
+
+    private void updateStats() {
+        PinPadDiagnostics.Snapshot snapshot = pinpadView.getDiagnostics().snapshot();
+        int taps = Math.max(keystrokes, 1);
+        StringBuilder stats = new StringBuilder();
+        stats.append(String.format(Locale.US, "cold start     %.2f ms, %d classes loaded (%s)%n",
+                coldStartMs, coldStartClasses, BuildConfig.FLAVOR));
+        stats.append(String.format(Locale.US, "construction   %.2f ms%n", constructionMs));
+        stats.append(String.format(Locale.US, "keystrokes     %d%s%n", keystrokes,
+                stormRemaining > 0 ? " (storm: " + stormRemaining + " left)" : ""));
+        stats.append(String.format(Locale.US, "latency        avg %.2f ms, max %.2f ms%n",
+                latencyTotalMs / taps, latencyMaxMs));
+        stats.append(String.format(Locale.US, "per keystroke  %.2f measure, %.2f layout, %.2f requestLayout%n",
+                delta(snapshot, PinPadDiagnostics.EVENT_MEASURE) / (double) taps,
+                delta(snapshot, PinPadDiagnostics.EVENT_LAYOUT) / (double) taps,
+                delta(snapshot, PinPadDiagnostics.EVENT_REQUEST_LAYOUT) / (double) taps));
+        stats.append(String.format(Locale.US, "allocations    %.1f per keystroke%s%n",
+                allocations / (double) taps,
+                gcBaseline >= 0 ? ", " + (getGcCount() - gcBaseline) + " GCs" : ""));
+        if (frameCount > 0) {
+            stats.append(String.format(Locale.US, "frames         avg %.2f ms, max %.2f ms, %d janky of %d",
+                    frameTotalNanos / 1e6 / frameCount, frameMaxNanos / 1e6, jankFrames, frameCount));
+        } else {
+            stats.append("frames         n/a");
+        }
+        statsView.setText(stats);
+    }
+
+    private long delta(PinPadDiagnostics.Snapshot snapshot, int event) {
+        return snapshot.getCount(PinPadDiagnostics.TARGET_PINPAD, event)
+                - diagnosticsBaseline.getCount(PinPadDiagnostics.TARGET_PINPAD, event);
+    }
+
+    /**
+     * @return number of garbage collections so far, or -1 where the runtime does not report it
+     */
+    private static int getGcCount() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            String count = Debug.getRuntimeStat("art.gc.gc-count");
+            if (count != null) {
+                return Integer.parseInt(count);
+            }
+        }
+        return -1;
+    }
+}
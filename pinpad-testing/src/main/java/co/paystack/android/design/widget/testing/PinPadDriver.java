@@ -0,0 +1,226 @@
+package co.paystack.android.design.widget.testing;
+
+import android.os.SystemClock;
+import android.util.DisplayMetrics;
+import android.view.MotionEvent;
+import android.view.View;
+
+import co.paystack.android.design.widget.PinPadTestHooks;
+import co.paystack.android.design.widget.PinPadView;
+import co.paystack.android.design.widget.PinVerifier;
+
+/**
+ * PinPadDriver
+ * <p>
+ * Drives a {@link PinPadView} from tests: digits are entered by value rather than by finding the
+ * key that shows them, the digit placement can be fixed and the entered pin is read straight
+ * from the pinpad.
+ * <p>
+ * Keys are pressed with a touch down and up dispatched to the pinpad at the key's center, so the
+ * presses take the path of a finger: the pinpad's touch handling, its input pipeline, listeners,
+ * indicators, stages and verifiers. A pinpad that has not been laid out yet, e.g. one not added
+ * to a window, is laid out at the screen size first. Everything runs synchronously on the calling
+ * thread, which makes the driver usable from plain Robolectric tests. Callbacks the pinpad posts,
+ * e.g. coalesced pin events or {@link PinVerifier} results, need the main looper to be idled.
+ */
+public final class PinPadDriver {
+    private static final int[] SEQUENTIAL_DIGITS = {0, 1, 2, 3, 4, 5, 6, 7, 8, 9};
+
+    private final PinPadView mPinPad;
+
+    private PinPadDriver(PinPadView pinPad) {
+        mPinPad = pinPad;
+    }
+
+    /**
+     * Creates a driver for the pinpad
+     *
+     * @param pinPad - {@link PinPadView} to drive
+     * @return {@link PinPadDriver} driver
+     */
+    public static PinPadDriver of(PinPadView pinPad) {
+        if (pinPad == null) {
+            throw new IllegalArgumentException("pinPad is required");
+        }
+        return new PinPadDriver(pinPad);
+    }
+
+    /**
+     * Gets the pinpad this driver drives
+     */
+    public PinPadView getPinPad() {
+        return mPinPad;
+    }
+
+    /**
+     * Places the digits in the given order, overriding random placement
+     *
+     * @param digitOrder - each digit from 0 to 9 once, for the keys from the 0 key of the default
+     *                   layout through to the 9 key
+     * @return this driver
+     */
+    public PinPadDriver forceDigitOrder(int... digitOrder) {
+        PinPadTestHooks.setForcedDigitOrder(mPinPad, digitOrder);
+        return this;
+    }
+
+    /**
+     * Places the digits on their usual keys, overriding random placement
+     *
+     * @return this driver
+     */
+    public PinPadDriver useSequentialDigits() {
+        return forceDigitOrder(SEQUENTIAL_DIGITS);
+    }
+
+    /**
+     * Goes back to the placement configured on the pinpad
+     *
+     * @return this driver
+     */
+    public PinPadDriver releaseDigitOrder() {
+        PinPadTestHooks.setForcedDigitOrder(mPinPad, null);
+        return this;
+    }
+
+    /**
+     * Gets the digit currently shown on each key
+     *
+     * @return digits in the order taken by {@link #forceDigitOrder(int...)}
+     */
+    public int[] getDigitOrder() {
+        return PinPadTestHooks.getDigitOrder(mPinPad);
+    }
+
+    /**
+     * Presses the key showing the digit, wherever it is placed
+     *
+     * @param digit - digit from 0 to 9
+     * @return this driver
+     */
+    public PinPadDriver enterDigit(int digit) {
+        press(PinPadTestHooks.getKeyForDigit(mPinPad, digit));
+        return this;
+    }
+
+    /**
+     * Presses the keys for every digit in the text, in order
+     *
+     * @param digits - digits to enter, e.g. "1234"
+     * @return this driver
+     */
+    public PinPadDriver enterDigits(CharSequence digits) {
+        for (int i = 0; i < digits.length(); i++) {
+            char c = digits.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new IllegalArgumentException("not a digit: " + c);
+            }
+            enterDigit(c - '0');
+        }
+        return this;
+    }
+
+    /**
+     * Presses the back key
+     *
+     * @return this driver
+     */
+    public PinPadDriver pressBack() {
+        press(PinPadTestHooks.getBackKey(mPinPad));
+        return this;
+    }
+
+    /**
+     * Presses the done key
+     *
+     * @return this driver
+     */
+    public PinPadDriver pressDone() {
+        press(PinPadTestHooks.getDoneKey(mPinPad));
+        return this;
+    }
+
+    /**
+     * Enters the digits and presses done, unless they complete the pin and auto submit
+     * submits them
+     *
+     * @param pin - pin to submit
+     * @return this driver
+     */
+    public PinPadDriver submit(CharSequence pin) {
+        boolean autoSubmits = mPinPad.getAutoSubmit()
+                && getEnteredLength() + pin.length() == mPinPad.getPinLength();
+        enterDigits(pin);
+        if (!autoSubmits) {
+            pressDone();
+        }
+        return this;
+    }
+
+    /**
+     * Gets the pin entered so far
+     */
+    public String getEnteredPin() {
+        return PinPadTestHooks.getEnteredPin(mPinPad);
+    }
+
+    /**
+     * Gets the number of digits entered so far
+     */
+    public int getEnteredLength() {
+        return PinPadTestHooks.getEnteredLength(mPinPad);
+    }
+
+    /**
+     * Gets whether key presses currently reach the pinpad
+     */
+    public boolean acceptsInput() {
+        return !mPinPad.isLocked() && !mPinPad.isVerifying();
+    }
+
+    /**
+     * Taps the center of the key; the pinpad swallows the tap while it ignores touches
+     */
+    private void press(View key) {
+        ensureLaidOut();
+        float x = key.getWidth() / 2f;
+        float y = key.getHeight() / 2f;
+        for (View view = key; view != mPinPad; view = (View) view.getParent()) {
+            View parent = (View) view.getParent();
+            x += view.getLeft() - parent.getScrollX();
+            y += view.getTop() - parent.getScrollY();
+        }
+        long downTime = SystemClock.uptimeMillis();
+        dispatchTouch(downTime, MotionEvent.ACTION_DOWN, x, y);
+        dispatchTouch(downTime, MotionEvent.ACTION_UP, x, y);
+    }
+
+    private void dispatchTouch(long downTime, int action, float x, float y) {
+        MotionEvent event = MotionEvent.obtain(downTime, SystemClock.uptimeMillis(), action, x, y, 0);
+        mPinPad.dispatchTouchEvent(event);
+        event.recycle();
+    }
+
+    /**
+     * Lays the pinpad out where it stands, or at the screen size if it never has been, so the
+     * keys have bounds to be touched in
+     */
+    private void ensureLaidOut() {
+        if (mPinPad.getWidth() > 0 && mPinPad.getHeight() > 0 && !mPinPad.isLayoutRequested()) {
+            return;
+        }
+        int widthSpec;
+        int heightSpec;
+        if (mPinPad.getWidth() > 0 && mPinPad.getHeight() > 0) {
+            widthSpec = View.MeasureSpec.makeMeasureSpec(mPinPad.getWidth(), View.MeasureSpec.EXACTLY);
+            heightSpec = View.MeasureSpec.makeMeasureSpec(mPinPad.getHeight(), View.MeasureSpec.EXACTLY);
+        } else {
+            DisplayMetrics metrics = mPinPad.getResources().getDisplayMetrics();
+            widthSpec = View.MeasureSpec.makeMeasureSpec(metrics.widthPixels, View.MeasureSpec.EXACTLY);
+            heightSpec = View.MeasureSpec.makeMeasureSpec(metrics.heightPixels, View.MeasureSpec.AT_MOST);
+        }
+        mPinPad.measure(widthSpec, heightSpec);
+        mPinPad.layout(mPinPad.getLeft(), mPinPad.getTop(),
+                mPinPad.getLeft() + mPinPad.getMeasuredWidth(), mPinPad.getTop() + mPinPad.getMeasuredHeight());
+    }
+}
@@ -0,0 +1,142 @@
+package co.paystack.android.design.widget.testing;
+
+import android.app.Activity;
+
+import co.paystack.android.design.widget.PinPadView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks {@link PinPadDriver} against a real {@link PinPadView}: digit placement, entering digits
+ * by value, submitting with and without auto submit, and presses while the pinpad is locked.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class PinPadDriverTest {
+    private static final int[] REVERSED = {9, 8, 7, 6, 5, 4, 3, 2, 1, 0};
+
+    private Activity mActivity;
+    private PinPadView mPinPad;
+    private PinPadDriver mDriver;
+    private final List<String> mCompleted = new ArrayList<>();
+    private final List<String> mIncomplete = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        mActivity = Robolectric.buildActivity(Activity.class).setup().get();
+        mPinPad = new PinPadView(mActivity);
+        mPinPad.setPinLength(4);
+        mPinPad.setOnSubmitListener(new PinPadView.OnSubmitListener() {
+            @Override
+            public void onCompleted(String pin) {
+                mCompleted.add(pin);
+            }
+
+            @Override
+            public void onIncompleteSubmit(String pin) {
+                mIncomplete.add(pin);
+            }
+        });
+        mDriver = PinPadDriver.of(mPinPad);
+    }
+
+    @Test
+    public void forceDigitOrder_placesDigits() {
+        mDriver.forceDigitOrder(REVERSED);
+        assertArrayEquals(REVERSED, mDriver.getDigitOrder());
+
+        mDriver.useSequentialDigits();
+        assertArrayEquals(new int[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9}, mDriver.getDigitOrder());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void forceDigitOrder_rejectsMissingDigit() {
+        mDriver.forceDigitOrder(0, 1, 2, 3, 4, 5, 6, 7, 8);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void forceDigitOrder_rejectsRepeatedDigit() {
+        mDriver.forceDigitOrder(0, 1, 2, 3, 4, 5, 6, 7, 8, 8);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void forceDigitOrder_rejectsNonDigit() {
+        mDriver.forceDigitOrder(0, 1, 2, 3, 4, 5, 6, 7, 8, 10);
+    }
+
+    @Test
+    public void enterDigits_findsKeysWhereverPlaced() {
+        mPinPad.setAutoSubmit(false);
+        mDriver.forceDigitOrder(REVERSED).enterDigits("1290");
+        assertEquals("1290", mDriver.getEnteredPin());
+        assertEquals(4, mDriver.getEnteredLength());
+
+        mDriver.pressBack();
+        assertEquals("129", mDriver.getEnteredPin());
+    }
+
+    @Test
+    public void enterDigits_onAttachedPinPad() {
+        mActivity.setContentView(mPinPad);
+        mPinPad.setAutoSubmit(false);
+        mDriver.forceDigitOrder(REVERSED).enterDigits("0917");
+        assertEquals("0917", mDriver.getEnteredPin());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void enterDigits_rejectsNonDigits() {
+        mDriver.enterDigits("12a4");
+    }
+
+    @Test
+    public void submit_withAutoSubmit() {
+        mPinPad.setAutoSubmit(true);
+        mDriver.useSequentialDigits().submit("4821");
+        assertEquals(1, mCompleted.size());
+        assertEquals("4821", mCompleted.get(0));
+        assertTrue(mIncomplete.isEmpty());
+    }
+
+    @Test
+    public void submit_withoutAutoSubmit() {
+        mPinPad.setAutoSubmit(false);
+        mDriver.submit("4821");
+        assertEquals(1, mCompleted.size());
+        assertEquals("4821", mCompleted.get(0));
+    }
+
+    @Test
+    public void submit_incompletePin() {
+        mPinPad.setAutoSubmit(true);
+        mDriver.submit("48");
+        assertTrue(mCompleted.isEmpty());
+        assertEquals(1, mIncomplete.size());
+    }
+
+    @Test
+    public void lockedPinPad_ignoresPresses() {
+        mPinPad.setLocked(true);
+        assertFalse(mDriver.acceptsInput());
+        mDriver.enterDigits("12").pressDone();
+        assertEquals(0, mDriver.getEnteredLength());
+        assertTrue(mIncomplete.isEmpty());
+
+        mPinPad.setLocked(false);
+        assertTrue(mDriver.acceptsInput());
+        mDriver.enterDigits("12");
+        assertEquals(2, mDriver.getEnteredLength());
+    }
+}
@@ -0,0 +1,66 @@
+package co.paystack.android.design.widget;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Typeface;
+import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.widget.TextView;
+
+import androidx.annotation.ColorInt;
+import androidx.annotation.ColorRes;
+import androidx.annotation.DrawableRes;
+import androidx.annotation.FontRes;
+import androidx.core.content.res.ResourcesCompat;
+import androidx.core.widget.TextViewCompat;
+
+/**
+ * Resource and widget compatibility calls for the appcompat flavor, backed by androidx.core.
+ * The framework flavor has the same class backed by framework APIs only.
+ */
+final class PinPadCompat {
+    /**
+     * Theme attribute of the key ripple, resolved by AppCompat themes on every API level
+     */
+    static final int SELECTABLE_ITEM_BACKGROUND = androidx.appcompat.R.attr.selectableItemBackground;
+
+    private PinPadCompat() {
+    }
+
+    @ColorInt
+    static int getColor(Resources resources, @ColorRes int resId) {
+        return ResourcesCompat.getColor(resources, resId, null);
+    }
+
+    static Drawable getDrawable(Resources resources, @DrawableRes int resId, Resources.Theme theme) {
+        return ResourcesCompat.getDrawable(resources, resId, theme);
+    }
+
+    /**
+     * Loads a font resource, blocking the calling thread for local fonts
+     *
+     * @param handler  - handler the callback is invoked on
+     * @param callback - receives the font, or null if it could not be loaded
+     */
+    static void loadFont(Context context, @FontRes int resId, Handler handler,
+                         final PinPadResources.TypefaceCallback callback) {
+        ResourcesCompat.getFont(context, resId, new ResourcesCompat.FontCallback() {
+            @Override
+            public void onFontRetrieved(Typeface typeface) {
+                callback.onTypefaceLoaded(typeface);
+            }
+
+            @Override
+            public void onFontRetrievalFailed(int reason) {
+                callback.onTypefaceLoaded(null);
+            }
+        }, handler);
+    }
+
+    /**
+     * @return the max lines of the textview, or -1 if unknown
+     */
+    static int getMaxLines(TextView textView) {
+        return TextViewCompat.getMaxLines(textView);
+    }
+}
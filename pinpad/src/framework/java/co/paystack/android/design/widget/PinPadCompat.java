@@ -0,0 +1,77 @@
+package co.paystack.android.design.widget;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Typeface;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.os.Handler;
+import android.widget.TextView;
+
+import androidx.annotation.ColorInt;
+import androidx.annotation.ColorRes;
+import androidx.annotation.DrawableRes;
+import androidx.annotation.FontRes;
+
+/**
+ * Resource and widget compatibility calls for the framework flavor, using framework APIs only.
+ * The appcompat flavor has the same class backed by androidx.core.
+ */
+final class PinPadCompat {
+    /**
+     * Theme attribute of the key ripple
+     */
+    static final int SELECTABLE_ITEM_BACKGROUND = android.R.attr.selectableItemBackground;
+
+    private PinPadCompat() {
+    }
+
+    @ColorInt
+    @SuppressWarnings("deprecation")
+    static int getColor(Resources resources, @ColorRes int resId) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            return resources.getColor(resId, null);
+        }
+        return resources.getColor(resId);
+    }
+
+    @SuppressWarnings("deprecation")
+    static Drawable getDrawable(Resources resources, @DrawableRes int resId, Resources.Theme theme) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            return resources.getDrawable(resId, theme);
+        }
+        return resources.getDrawable(resId);
+    }
+
+    /**
+     * Loads a font resource, blocking the calling thread. Font resources need API 26 without
+     * androidx.core; older devices keep the default typeface.
+     *
+     * @param handler  - handler the callback is invoked on
+     * @param callback - receives the font, or null if it could not be loaded
+     */
+    static void loadFont(Context context, @FontRes int resId, Handler handler,
+                         final PinPadResources.TypefaceCallback callback) {
+        Typeface font = null;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            font = context.getResources().getFont(resId);
+        }
+        final Typeface typeface = font;
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                callback.onTypefaceLoaded(typeface);
+            }
+        });
+    }
+
+    /**
+     * @return the max lines of the textview, or -1 if unknown
+     */
+    static int getMaxLines(TextView textView) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            return textView.getMaxLines();
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,154 @@
+package co.paystack.android.design.widget;
+
+/**
+ * AmountAccumulator
+ * <p>
+ * Collects keypad digits into an amount held as a {@code long} of minor units (e.g. kobo or
+ * cents) and formats it for display into a reused char buffer. Entering digits and formatting
+ * do not allocate.
+ */
+class AmountAccumulator {
+    /**
+     * Long.MAX_VALUE has 19 digits; room for the digits, separators and the decimal point
+     */
+    private static final int BUFFER_SIZE = 40;
+
+    private final char[] mBuffer = new char[BUFFER_SIZE];
+    private long mValue;
+    private long mMaxValue = Long.MAX_VALUE;
+    private int mDecimals = 2;
+    private char mDecimalSeparator = '.';
+    private char mGroupingSeparator = ',';
+    private int mLength;
+
+    /**
+     * Sets how many of the entered digits are decimals
+     *
+     * @param decimals - number of decimal places of the currency, 0 for none
+     */
+    void setDecimals(int decimals) {
+        if (decimals < 0 || decimals > 18) {
+            throw new IllegalArgumentException("decimals must be between 0 and 18");
+        }
+        mDecimals = decimals;
+    }
+
+    int getDecimals() {
+        return mDecimals;
+    }
+
+    /**
+     * Sets the largest amount that can be entered. An amount already over it must be cleared
+     * first, so the change can be reported.
+     *
+     * @param maxValue - largest amount that can be entered, in minor units
+     */
+    void setMaxValue(long maxValue) {
+        if (maxValue <= 0) {
+            throw new IllegalArgumentException("max value must be positive");
+        }
+        if (mValue > maxValue) {
+            throw new IllegalStateException("the amount is over the new max value");
+        }
+        mMaxValue = maxValue;
+    }
+
+    long getMaxValue() {
+        return mMaxValue;
+    }
+
+    /**
+     * @param decimalSeparator  - separator between units and decimals
+     * @param groupingSeparator - separator between groups of thousands, 0 for none
+     */
+    void setSeparators(char decimalSeparator, char groupingSeparator) {
+        mDecimalSeparator = decimalSeparator;
+        mGroupingSeparator = groupingSeparator;
+    }
+
+    long getValue() {
+        return mValue;
+    }
+
+    /**
+     * Appends a digit to the amount
+     *
+     * @param digit - digit from 0 to 9
+     * @return false if the digit would take the amount over the max value
+     */
+    boolean appendDigit(int digit) {
+        if (mValue > (mMaxValue - digit) / 10) {
+            return false;
+        }
+        mValue = mValue * 10 + digit;
+        return true;
+    }
+
+    /**
+     * Appends two zeros to the amount
+     *
+     * @return false if they would take the amount over the max value, the amount is unchanged then
+     */
+    boolean appendDoubleZero() {
+        if (mValue > mMaxValue / 100) {
+            return false;
+        }
+        mValue *= 100;
+        return true;
+    }
+
+    /**
+     * Removes the last entered digit
+     *
+     * @return false if the amount was already zero
+     */
+    boolean removeDigit() {
+        if (mValue == 0) {
+            return false;
+        }
+        mValue /= 10;
+        return true;
+    }
+
+    void clear() {
+        mValue = 0;
+    }
+
+    /**
+     * Formats the amount into {@link #getBuffer()}, e.g. 1234567 with 2 decimals is "12,345.67"
+     *
+     * @return number of chars written, starting at index 0
+     */
+    int format() {
+        // written right to left from the end of the buffer, then moved to the front
+        int position = BUFFER_SIZE;
+        long value = mValue;
+        for (int i = 0; i < mDecimals; i++) {
+            mBuffer[--position] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        if (mDecimals > 0) {
+            mBuffer[--position] = mDecimalSeparator;
+        }
+        int digits = 0;
+        do {
+            if (digits > 0 && digits % 3 == 0 && mGroupingSeparator != 0) {
+                mBuffer[--position] = mGroupingSeparator;
+            }
+            mBuffer[--position] = (char) ('0' + value % 10);
+            value /= 10;
+            digits++;
+        } while (value > 0);
+
+        mLength = BUFFER_SIZE - position;
+        System.arraycopy(mBuffer, position, mBuffer, 0, mLength);
+        return mLength;
+    }
+
+    /**
+     * Gets the buffer {@link #format()} writes into. It is reused for every format.
+     */
+    char[] getBuffer() {
+        return mBuffer;
+    }
+}
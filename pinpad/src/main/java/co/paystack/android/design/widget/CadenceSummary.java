@@ -0,0 +1,110 @@
+package co.paystack.android.design.widget;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timing summary of a single PIN entry produced by {@link TypingCadenceCollector}
+ */
+public final class CadenceSummary {
+    /**
+     * Upper bounds (exclusive) of the histogram buckets in milliseconds. The last bucket
+     * holds every interval from the final bound upwards.
+     */
+    static final long[] BUCKET_UPPER_BOUNDS_MS = {50, 100, 150, 200, 300, 500, 1000};
+
+    private final int[] mHistogram;
+    private final int mIntervalCount;
+    private final long mMeanIntervalNanos;
+    private final long mMinIntervalNanos;
+    private final long mMaxIntervalNanos;
+    private final int mDigitCount;
+    private final int mBackspaceCount;
+    private final long mTimeToSubmitNanos;
+
+    CadenceSummary(int[] histogram, int intervalCount, long meanIntervalNanos,
+                   long minIntervalNanos, long maxIntervalNanos, int digitCount,
+                   int backspaceCount, long timeToSubmitNanos) {
+        mHistogram = histogram;
+        mIntervalCount = intervalCount;
+        mMeanIntervalNanos = meanIntervalNanos;
+        mMinIntervalNanos = minIntervalNanos;
+        mMaxIntervalNanos = maxIntervalNanos;
+        mDigitCount = digitCount;
+        mBackspaceCount = backspaceCount;
+        mTimeToSubmitNanos = timeToSubmitNanos;
+    }
+
+    static int bucketFor(long intervalNanos) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(intervalNanos);
+        for (int i = 0; i < BUCKET_UPPER_BOUNDS_MS.length; i++) {
+            if (millis < BUCKET_UPPER_BOUNDS_MS[i]) {
+                return i;
+            }
+        }
+        return BUCKET_UPPER_BOUNDS_MS.length;
+    }
+
+    /**
+     * @return upper bounds (exclusive) of the histogram buckets in milliseconds
+     */
+    public static long[] getBucketUpperBoundsMillis() {
+        return BUCKET_UPPER_BOUNDS_MS.clone();
+    }
+
+    /**
+     * @return number of intervals in each bucket, one more entry than
+     * {@link #getBucketUpperBoundsMillis()}
+     */
+    public int[] getHistogram() {
+        return mHistogram.clone();
+    }
+
+    /**
+     * @return number of intervals recorded, including those that fell out of the ring buffer
+     */
+    public int getIntervalCount() {
+        return mIntervalCount;
+    }
+
+    public long getMeanIntervalNanos() {
+        return mMeanIntervalNanos;
+    }
+
+    public long getMinIntervalNanos() {
+        return mMinIntervalNanos;
+    }
+
+    public long getMaxIntervalNanos() {
+        return mMaxIntervalNanos;
+    }
+
+    public int getDigitCount() {
+        return mDigitCount;
+    }
+
+    public int getBackspaceCount() {
+        return mBackspaceCount;
+    }
+
+    /**
+     * @return time from the first key press to submit in nanoseconds
+     */
+    public long getTimeToSubmitNanos() {
+        return mTimeToSubmitNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "CadenceSummary{" +
+                "histogram=" + Arrays.toString(mHistogram) +
+                ", intervalCount=" + mIntervalCount +
+                ", meanIntervalNanos=" + mMeanIntervalNanos +
+                ", minIntervalNanos=" + mMinIntervalNanos +
+                ", maxIntervalNanos=" + mMaxIntervalNanos +
+                ", digitCount=" + mDigitCount +
+                ", backspaceCount=" + mBackspaceCount +
+                ", timeToSubmitNanos=" + mTimeToSubmitNanos +
+                '}';
+    }
+}
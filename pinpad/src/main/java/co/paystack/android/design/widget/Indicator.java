@@ -4,20 +4,18 @@ import android.annotation.TargetApi;
 import android.content.Context;
 import android.content.res.Resources;
 import android.content.res.TypedArray;
+import android.graphics.Canvas;
 import android.graphics.Color;
+import android.graphics.Paint;
 import android.graphics.drawable.Drawable;
-import android.graphics.drawable.GradientDrawable;
-import android.graphics.drawable.StateListDrawable;
 import android.os.Build;
 import android.util.AttributeSet;
 import android.util.DisplayMetrics;
-import android.util.StateSet;
 import android.view.View;
 import android.widget.Checkable;
 import android.widget.LinearLayout;
 
 import androidx.annotation.ColorInt;
-import androidx.core.content.res.ResourcesCompat;
 
 class Indicator extends LinearLayout implements Checkable {
 
@@ -49,6 +47,12 @@ class Indicator extends LinearLayout implements Checkable {
     private int mIndicatorStrokeWidth = DEFAULT_INDICATOR_STROKE_WIDTH;
 
     private OnCheckedChangeListener mOnCheckedChangeListener;
+    private PinPadDiagnostics mDiagnostics;
+    /**
+     * Paint for the lite render profile, which draws the indicator directly instead of
+     * through a state list background
+     */
+    private Paint mLitePaint;
 
     public Indicator(Context context) {
         super(context);
@@ -82,48 +86,88 @@ class Indicator extends LinearLayout implements Checkable {
                         DEFAULT_INDICATOR_STROKE_WIDTH);
                 if (a.hasValue(R.styleable.PinPadView_pin_indicator_filled_color)) {
                     mIndicatorFilledColor = a.getColor(R.styleable.PinPadView_pin_indicator_filled_color,
-                            ResourcesCompat.getColor(getResources(), R.color.pstck_pinpad_default_pin_indicator_filled_color, null));
+                            PinPadCompat.getColor(getResources(), R.color.pstck_pinpad_default_pin_indicator_filled_color));
                 }
                 if (a.hasValue(R.styleable.PinPadView_pin_indicator_empty_color)) {
                     mIndicatorEmptyColor = a.getColor(R.styleable.PinPadView_pin_indicator_empty_color,
-                            ResourcesCompat.getColor(getResources(), R.color.pstck_pinpad_default_pin_indicator_empty_color, null));
+                            PinPadCompat.getColor(getResources(), R.color.pstck_pinpad_default_pin_indicator_empty_color));
                 }
                 a.recycle();
             }
 
             setIndicatorSize(mIndicatorSize);
             // create drawable
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
-                setBackground(createDrawable());
-            } else {
-                setBackgroundDrawable(createDrawable());
-            }
+            setBackgroundDrawableCompat(createDrawable());
             setChecked(false);
         }
 
     }
 
-    private StateListDrawable createDrawable() {
-        StateListDrawable drawable = new StateListDrawable();
+    private Drawable createDrawable() {
+        return PinPadResources.getIndicatorDrawable(getContext(), mIndicatorFilledColor,
+                mIndicatorEmptyColor, mIndicatorStrokeWidth);
+    }
+
+    /**
+     * Switches between the state list background and drawing a flat circle in {@link #onDraw(Canvas)}
+     *
+     * @param lite - true for the lite render profile
+     */
+    void setLiteRendering(boolean lite) {
+        if (lite == (mLitePaint != null)) {
+            return;
+        }
+        if (lite) {
+            mLitePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+            mLitePaint.setStrokeWidth(mIndicatorStrokeWidth);
+            setBackgroundDrawableCompat(null);
+            setWillNotDraw(false);
+        } else {
+            mLitePaint = null;
+            setBackgroundDrawableCompat(createDrawable());
+        }
+        invalidate();
+    }
 
-        drawable.addState(new int[]{android.R.attr.state_checked}, createFilledDrawable());
-        drawable.addState(StateSet.WILD_CARD, createEmptyDrawable());
-        return drawable;
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (mLitePaint != null) {
+            float radius = Math.min(getWidth(), getHeight()) / 2f;
+            if (mChecked) {
+                mLitePaint.setStyle(Paint.Style.FILL);
+                mLitePaint.setColor(mIndicatorFilledColor);
+            } else {
+                mLitePaint.setStyle(Paint.Style.STROKE);
+                mLitePaint.setColor(mIndicatorEmptyColor);
+                radius -= mIndicatorStrokeWidth / 2f;
+            }
+            canvas.drawCircle(getWidth() / 2f, getHeight() / 2f, radius, mLitePaint);
+        }
     }
 
-    private Drawable createEmptyDrawable() {
-        GradientDrawable drawable = new GradientDrawable();
-        drawable.setShape(GradientDrawable.OVAL);
-        drawable.setStroke(mIndicatorStrokeWidth, mIndicatorEmptyColor);
-        drawable.setColor(Color.TRANSPARENT);
-        return drawable;
+    /**
+     * Drops the background drawable while the pinpad is detached
+     */
+    void releaseDrawables() {
+        setBackgroundDrawableCompat(null);
     }
 
-    private Drawable createFilledDrawable() {
-        GradientDrawable drawable = new GradientDrawable();
-        drawable.setShape(GradientDrawable.OVAL);
-        drawable.setColor(mIndicatorFilledColor);
-        return drawable;
+    /**
+     * Reloads the background dropped by {@link #releaseDrawables()}
+     */
+    void restoreDrawables() {
+        if (mLitePaint == null && getBackground() == null) {
+            setBackgroundDrawableCompat(createDrawable());
+        }
+    }
+
+    private void setBackgroundDrawableCompat(Drawable drawable) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            setBackground(drawable);
+        } else {
+            setBackgroundDrawable(drawable);
+        }
     }
 
     public void setIndicatorSize(int size) {
@@ -151,6 +195,42 @@ class Indicator extends LinearLayout implements Checkable {
         mOnCheckedChangeListener = listener;
     }
 
+    void setDiagnostics(PinPadDiagnostics diagnostics) {
+        mDiagnostics = diagnostics;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        if (mDiagnostics != null) {
+            mDiagnostics.count(PinPadDiagnostics.TARGET_INDICATOR, PinPadDiagnostics.EVENT_MEASURE);
+        }
+        super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        if (mDiagnostics != null) {
+            mDiagnostics.count(PinPadDiagnostics.TARGET_INDICATOR, PinPadDiagnostics.EVENT_LAYOUT);
+        }
+        super.onLayout(changed, l, t, r, b);
+    }
+
+    @Override
+    protected void dispatchDraw(Canvas canvas) {
+        if (mDiagnostics != null) {
+            mDiagnostics.count(PinPadDiagnostics.TARGET_INDICATOR, PinPadDiagnostics.EVENT_DRAW);
+        }
+        super.dispatchDraw(canvas);
+    }
+
+    @Override
+    public void requestLayout() {
+        if (mDiagnostics != null) {
+            mDiagnostics.count(PinPadDiagnostics.TARGET_INDICATOR, PinPadDiagnostics.EVENT_REQUEST_LAYOUT);
+        }
+        super.requestLayout();
+    }
+
     @Override
     public int[] onCreateDrawableState(int extraSpace) {
         final int[] drawableState = super.onCreateDrawableState(extraSpace + 1);
@@ -165,6 +245,9 @@ class Indicator extends LinearLayout implements Checkable {
         if (b != mChecked) {
             mChecked = b;
             refreshDrawableState();
+            if (mLitePaint != null) {
+                invalidate();
+            }
 
             if (mOnCheckedChangeListener != null) {
                 mOnCheckedChangeListener.onCheckedChanged(this, mChecked);
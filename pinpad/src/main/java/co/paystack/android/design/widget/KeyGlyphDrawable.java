@@ -0,0 +1,138 @@
+package co.paystack.android.design.widget;
+
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.drawable.Drawable;
+
+import androidx.annotation.ColorInt;
+import androidx.annotation.NonNull;
+
+/**
+ * KeyGlyphDrawable
+ * <p>
+ * Draws the built-in key glyphs (backspace, done, fingerprint) from paths instead of shipping
+ * raster assets. The glyph scales to its bounds and its paths are only rebuilt when the size of
+ * the bounds changes, so drawing is a single stroked path.
+ */
+class KeyGlyphDrawable extends Drawable {
+    static final int GLYPH_NONE = 0;
+    static final int GLYPH_BACKSPACE = 1;
+    static final int GLYPH_DONE = 2;
+    static final int GLYPH_FINGERPRINT = 3;
+
+    /**
+     * Stroke width relative to the glyph size
+     */
+    private static final float STROKE_RATIO = 0.07f;
+
+    private final int mGlyph;
+    private final Paint mPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Path mPath = new Path();
+    private final RectF mArcBounds = new RectF();
+    private int mPathWidth = -1;
+    private int mPathHeight = -1;
+
+    KeyGlyphDrawable(int glyph, @ColorInt int color) {
+        mGlyph = glyph;
+        mPaint.setStyle(Paint.Style.STROKE);
+        mPaint.setStrokeCap(Paint.Cap.ROUND);
+        mPaint.setStrokeJoin(Paint.Join.ROUND);
+        mPaint.setColor(color);
+    }
+
+    int getGlyph() {
+        return mGlyph;
+    }
+
+    void setColor(@ColorInt int color) {
+        if (mPaint.getColor() != color) {
+            mPaint.setColor(color);
+            invalidateSelf();
+        }
+    }
+
+    @Override
+    protected void onBoundsChange(Rect bounds) {
+        super.onBoundsChange(bounds);
+        if (bounds.width() != mPathWidth || bounds.height() != mPathHeight) {
+            mPathWidth = bounds.width();
+            mPathHeight = bounds.height();
+            buildPath(mPathWidth, mPathHeight);
+        }
+    }
+
+    @Override
+    public void draw(@NonNull Canvas canvas) {
+        Rect bounds = getBounds();
+        canvas.save();
+        canvas.translate(bounds.left, bounds.top);
+        canvas.drawPath(mPath, mPaint);
+        canvas.restore();
+    }
+
+    private void buildPath(int width, int height) {
+        mPath.reset();
+        float size = Math.min(width, height);
+        float stroke = size * STROKE_RATIO;
+        mPaint.setStrokeWidth(stroke);
+        // keep the glyph square, centred and with the stroke inside the bounds
+        float left = (width - size) / 2f + stroke;
+        float top = (height - size) / 2f + stroke;
+        float s = size - 2 * stroke;
+
+        switch (mGlyph) {
+            case GLYPH_BACKSPACE:
+                mPath.moveTo(left, top + 0.5f * s);
+                mPath.lineTo(left + 0.28f * s, top + 0.18f * s);
+                mPath.lineTo(left + s, top + 0.18f * s);
+                mPath.lineTo(left + s, top + 0.82f * s);
+                mPath.lineTo(left + 0.28f * s, top + 0.82f * s);
+                mPath.close();
+                mPath.moveTo(left + 0.46f * s, top + 0.36f * s);
+                mPath.lineTo(left + 0.74f * s, top + 0.64f * s);
+                mPath.moveTo(left + 0.74f * s, top + 0.36f * s);
+                mPath.lineTo(left + 0.46f * s, top + 0.64f * s);
+                break;
+            case GLYPH_DONE:
+                mPath.moveTo(left + 0.1f * s, top + 0.52f * s);
+                mPath.lineTo(left + 0.38f * s, top + 0.8f * s);
+                mPath.lineTo(left + 0.9f * s, top + 0.24f * s);
+                break;
+            case GLYPH_FINGERPRINT:
+                float cx = left + s / 2f;
+                float cy = top + 0.6f * s;
+                for (int i = 1; i <= 3; i++) {
+                    float radius = 0.14f * s * i;
+                    mArcBounds.set(cx - radius, cy - radius, cx + radius, cy + radius);
+                    mPath.addArc(mArcBounds, 200f, 140f);
+                }
+                mPath.moveTo(cx, cy);
+                mPath.lineTo(cx, top + s);
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+        mPaint.setAlpha(alpha);
+        invalidateSelf();
+    }
+
+    @Override
+    public void setColorFilter(ColorFilter colorFilter) {
+        mPaint.setColorFilter(colorFilter);
+        invalidateSelf();
+    }
+
+    @Override
+    public int getOpacity() {
+        return PixelFormat.TRANSLUCENT;
+    }
+}
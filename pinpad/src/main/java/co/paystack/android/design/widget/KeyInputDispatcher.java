@@ -0,0 +1,169 @@
+package co.paystack.android.design.widget;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+/**
+ * KeyInputDispatcher
+ * <p>
+ * Central input pipeline for the keys of a {@link PinPadView}. Every pointer that lands on a key
+ * is queued in the order it went down and the key is committed when its pointer lifts. A key is
+ * only committed once every key pressed before it has been committed or cancelled, so rolled
+ * two-thumb taps are delivered in press order even when the fingers lift out of order.
+ * <p>
+ * A key held down for longer than {@link #HOLD_THRESHOLD_MS} is a resting finger rather than part
+ * of a rolled tap: it stops holding back the keys pressed after it, which are then committed as
+ * they lift, and is itself committed whenever it lifts.
+ * <p>
+ * The queue is backed by fixed primitive arrays, so queueing a tap does not allocate.
+ */
+class KeyInputDispatcher {
+    /**
+     * Most touch screens track at most 10 pointers
+     */
+    private static final int MAX_PENDING = 10;
+    /**
+     * Longer than a tap lasts; a key held this long no longer orders the keys pressed after it
+     */
+    static final long HOLD_THRESHOLD_MS = 150;
+
+    private final PinPadButton[] mButtons = new PinPadButton[MAX_PENDING];
+    private final int[] mPointerIds = new int[MAX_PENDING];
+    private final long[] mDownTimes = new long[MAX_PENDING];
+    private final boolean[] mReleased = new boolean[MAX_PENDING];
+    private int mCount;
+    private boolean mDraining;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    /**
+     * Commits lifted keys once the key they wait on has been held past the threshold
+     */
+    private final Runnable mHeldKeyTimeout = new Runnable() {
+        @Override
+        public void run() {
+            drain(SystemClock.uptimeMillis());
+        }
+    };
+
+    /**
+     * Called when a pointer goes down on a key
+     *
+     * @param button    - key that was pressed
+     * @param pointerId - id of the pointer that pressed the key
+     * @param downTime  - time the pointer went down, in the {@link SystemClock#uptimeMillis()} base
+     */
+    void onPointerDown(PinPadButton button, int pointerId, long downTime) {
+        if (mCount == MAX_PENDING) {
+            // the oldest press never lifted, drop it rather than the newest tap
+            removeAt(0);
+        }
+        mButtons[mCount] = button;
+        mPointerIds[mCount] = pointerId;
+        mDownTimes[mCount] = downTime;
+        mReleased[mCount] = false;
+        mCount++;
+    }
+
+    /**
+     * Called when a pointer lifts from a key. The key is committed as soon as every key pressed
+     * before it has been resolved or held past the threshold.
+     *
+     * @param button    - key that was released
+     * @param pointerId - id of the pointer that released the key
+     * @param eventTime - time the pointer lifted, in the {@link SystemClock#uptimeMillis()} base
+     */
+    void onPointerUp(PinPadButton button, int pointerId, long eventTime) {
+        for (int i = 0; i < mCount; i++) {
+            if (mButtons[i] == button && mPointerIds[i] == pointerId && !mReleased[i]) {
+                mReleased[i] = true;
+                break;
+            }
+        }
+        drain(eventTime);
+    }
+
+    /**
+     * Called when the touch stream on a key is cancelled. Its pending presses are dropped
+     * and any presses that were waiting on them are committed.
+     *
+     * @param button    - key whose touch stream was cancelled
+     * @param eventTime - time of the cancel, in the {@link SystemClock#uptimeMillis()} base
+     */
+    void onCancel(PinPadButton button, long eventTime) {
+        for (int i = mCount - 1; i >= 0; i--) {
+            if (mButtons[i] == button && !mReleased[i]) {
+                removeAt(i);
+            }
+        }
+        drain(eventTime);
+    }
+
+    /**
+     * Drops every pending press without committing it
+     */
+    void reset() {
+        mHandler.removeCallbacks(mHeldKeyTimeout);
+        while (mCount > 0) {
+            removeAt(mCount - 1);
+        }
+    }
+
+    /**
+     * Commits, in press order, every lifted key that only waits on keys held past the threshold
+     *
+     * @param now - current time, in the {@link SystemClock#uptimeMillis()} base
+     */
+    private void drain(long now) {
+        if (mDraining) {
+            // a commit callback lifted another key, the outer loop picks it up
+            return;
+        }
+        mDraining = true;
+        try {
+            int i = 0;
+            while (i < mCount) {
+                if (mReleased[i]) {
+                    PinPadButton button = mButtons[i];
+                    removeAt(i);
+                    button.performButtonClick();
+                    // the callback may have lifted a held key ahead of this one
+                    i = 0;
+                } else if (now - mDownTimes[i] >= HOLD_THRESHOLD_MS) {
+                    i++;
+                } else {
+                    break;
+                }
+            }
+            scheduleHeldKeyTimeout(i);
+        } finally {
+            mDraining = false;
+        }
+    }
+
+    /**
+     * Wakes up once the press blocking the queue has been held past the threshold, if a lifted
+     * key is waiting on it
+     *
+     * @param blocking - index of the press blocking the queue, or the queue size if none is
+     */
+    private void scheduleHeldKeyTimeout(int blocking) {
+        mHandler.removeCallbacks(mHeldKeyTimeout);
+        for (int i = blocking + 1; i < mCount; i++) {
+            if (mReleased[i]) {
+                mHandler.postAtTime(mHeldKeyTimeout, mDownTimes[blocking] + HOLD_THRESHOLD_MS);
+                return;
+            }
+        }
+    }
+
+    private void removeAt(int index) {
+        int moved = mCount - index - 1;
+        if (moved > 0) {
+            System.arraycopy(mButtons, index + 1, mButtons, index, moved);
+            System.arraycopy(mPointerIds, index + 1, mPointerIds, index, moved);
+            System.arraycopy(mReleased, index + 1, mReleased, index, moved);
+        }
+        mCount--;
+        mButtons[mCount] = null;
+    }
+}
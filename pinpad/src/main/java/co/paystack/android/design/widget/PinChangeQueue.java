@@ -0,0 +1,124 @@
+package co.paystack.android.design.widget;
+
+/**
+ * FIFO of pending pin changes and submits for {@link PinPadView}. Listener callbacks that change
+ * the pin while another change is being delivered are queued here and delivered afterwards, in
+ * order, instead of re-entering the delivery of the outer change.
+ * <p>
+ * Records are stored in parallel arrays that only grow when changes nest deeper than before.
+ * {@link #poll()} moves the head record into the "current" fields read by the getters.
+ */
+class PinChangeQueue {
+    private static final int INITIAL_CAPACITY = 4;
+
+    private int[] mTypes = new int[INITIAL_CAPACITY];
+    private int[] mLengths = new int[INITIAL_CAPACITY];
+    private boolean[] mSubmits = new boolean[INITIAL_CAPACITY];
+    private String[] mOldPins = new String[INITIAL_CAPACITY];
+    private String[] mNewPins = new String[INITIAL_CAPACITY];
+    private int mHead;
+    private int mSize;
+
+    private int mType;
+    private int mLength;
+    private boolean mSubmit;
+    private String mOldPin;
+    private String mNewPin;
+
+    /**
+     * @param type   - one of the {@link PinPadView.OnPinEventListener} TYPE_ constants
+     * @param length - pin length after the change
+     * @param submit - true if the change completes the pin and submits it
+     * @param oldPin - pin before the change, if anyone needs it
+     * @param newPin - pin after the change, if anyone needs it
+     */
+    void add(int type, int length, boolean submit, String oldPin, String newPin) {
+        if (mSize == mTypes.length) {
+            grow();
+        }
+        int index = (mHead + mSize) % mTypes.length;
+        mTypes[index] = type;
+        mLengths[index] = length;
+        mSubmits[index] = submit;
+        mOldPins[index] = oldPin;
+        mNewPins[index] = newPin;
+        mSize++;
+    }
+
+    boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    /**
+     * Removes the head record and makes it the current one
+     *
+     * @return false if the queue was empty
+     */
+    boolean poll() {
+        if (mSize == 0) {
+            return false;
+        }
+        mType = mTypes[mHead];
+        mLength = mLengths[mHead];
+        mSubmit = mSubmits[mHead];
+        mOldPin = mOldPins[mHead];
+        mNewPin = mNewPins[mHead];
+        // do not keep pins around longer than needed
+        mOldPins[mHead] = null;
+        mNewPins[mHead] = null;
+        mHead = (mHead + 1) % mTypes.length;
+        mSize--;
+        return true;
+    }
+
+    int getType() {
+        return mType;
+    }
+
+    int getLength() {
+        return mLength;
+    }
+
+    boolean isSubmit() {
+        return mSubmit;
+    }
+
+    String getOldPin() {
+        return mOldPin;
+    }
+
+    String getNewPin() {
+        return mNewPin;
+    }
+
+    /**
+     * Forgets the pins of the current record once it has been delivered
+     */
+    void releaseCurrent() {
+        mOldPin = null;
+        mNewPin = null;
+    }
+
+    private void grow() {
+        int capacity = mTypes.length * 2;
+        int[] types = new int[capacity];
+        int[] lengths = new int[capacity];
+        boolean[] submits = new boolean[capacity];
+        String[] oldPins = new String[capacity];
+        String[] newPins = new String[capacity];
+        for (int i = 0; i < mSize; i++) {
+            int index = (mHead + i) % mTypes.length;
+            types[i] = mTypes[index];
+            lengths[i] = mLengths[index];
+            submits[i] = mSubmits[index];
+            oldPins[i] = mOldPins[index];
+            newPins[i] = mNewPins[index];
+        }
+        mTypes = types;
+        mLengths = lengths;
+        mSubmits = submits;
+        mOldPins = oldPins;
+        mNewPins = newPins;
+        mHead = 0;
+    }
+}
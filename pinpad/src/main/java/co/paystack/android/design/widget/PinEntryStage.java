@@ -0,0 +1,52 @@
+package co.paystack.android.design.widget;
+
+/**
+ * One entry of a multi-stage PIN flow run by
+ * {@link PinPadView#startStages(PinPadView.OnStagesCompletedListener, PinEntryStage...)},
+ * e.g. "enter new PIN" followed by "confirm new PIN".
+ */
+public class PinEntryStage {
+    /**
+     * Value of {@link #getConfirmsStage()} for stages that do not confirm an earlier stage
+     */
+    public static final int NO_CONFIRMATION = -1;
+
+    private final String mPromptText;
+    private final int mPinLength;
+    private final int mConfirmsStage;
+
+    /**
+     * @param promptText - text to display on the prompt field during this stage
+     * @param pinLength  - length of the pin collected in this stage
+     */
+    public PinEntryStage(String promptText, int pinLength) {
+        this(promptText, pinLength, NO_CONFIRMATION);
+    }
+
+    /**
+     * @param promptText    - text to display on the prompt field during this stage
+     * @param pinLength     - length of the pin collected in this stage
+     * @param confirmsStage - index of an earlier stage whose pin this stage must repeat,
+     *                      or {@link #NO_CONFIRMATION}
+     */
+    public PinEntryStage(String promptText, int pinLength, int confirmsStage) {
+        if (pinLength <= 0) {
+            throw new IllegalArgumentException("pinLength must be positive");
+        }
+        mPromptText = promptText;
+        mPinLength = pinLength;
+        mConfirmsStage = confirmsStage;
+    }
+
+    public String getPromptText() {
+        return mPromptText;
+    }
+
+    public int getPinLength() {
+        return mPinLength;
+    }
+
+    public int getConfirmsStage() {
+        return mConfirmsStage;
+    }
+}
@@ -0,0 +1,106 @@
+package co.paystack.android.design.widget;
+
+import android.os.Build;
+import android.view.View;
+
+/**
+ * Fans compact {@link PinPadView.OnPinEventListener} events out to any number of subscribers.
+ * <p>
+ * Subscribers are kept in copy-on-write arrays, so dispatching never allocates and a listener
+ * may unsubscribe from inside its own callback. Coalescing subscribers only receive the latest
+ * event of each frame, posted on the next animation frame of the host view.
+ */
+class PinEventDispatcher implements Runnable {
+    private static final PinPadView.OnPinEventListener[] EMPTY = new PinPadView.OnPinEventListener[0];
+
+    private final View mHost;
+    private PinPadView.OnPinEventListener[] mListeners = EMPTY;
+    private PinPadView.OnPinEventListener[] mCoalescedListeners = EMPTY;
+
+    private boolean mFramePosted;
+    private int mPendingType;
+    private int mPendingLength;
+    private long mPendingTimestamp;
+
+    PinEventDispatcher(View host) {
+        mHost = host;
+    }
+
+    void addListener(PinPadView.OnPinEventListener listener, boolean coalesce) {
+        if (listener == null) {
+            return;
+        }
+        removeListener(listener);
+        if (coalesce) {
+            mCoalescedListeners = append(mCoalescedListeners, listener);
+        } else {
+            mListeners = append(mListeners, listener);
+        }
+    }
+
+    void removeListener(PinPadView.OnPinEventListener listener) {
+        mListeners = remove(mListeners, listener);
+        mCoalescedListeners = remove(mCoalescedListeners, listener);
+    }
+
+    /**
+     * Delivers an event to the immediate subscribers and schedules it for the coalescing ones
+     *
+     * @param type   - one of the {@link PinPadView.OnPinEventListener} TYPE_ constants
+     * @param length - pin length after the event
+     */
+    void dispatch(int type, int length) {
+        long timestamp = System.nanoTime();
+        PinPadView.OnPinEventListener[] listeners = mListeners;
+        for (int i = 0; i < listeners.length; i++) {
+            listeners[i].onPinEvent(type, length, timestamp);
+        }
+
+        if (mCoalescedListeners.length > 0) {
+            mPendingType = type;
+            mPendingLength = length;
+            mPendingTimestamp = timestamp;
+            if (!mFramePosted) {
+                mFramePosted = true;
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+                    mHost.postOnAnimation(this);
+                } else {
+                    mHost.post(this);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        mFramePosted = false;
+        PinPadView.OnPinEventListener[] listeners = mCoalescedListeners;
+        for (int i = 0; i < listeners.length; i++) {
+            listeners[i].onPinEvent(mPendingType, mPendingLength, mPendingTimestamp);
+        }
+    }
+
+    private static PinPadView.OnPinEventListener[] append(PinPadView.OnPinEventListener[] listeners,
+                                                          PinPadView.OnPinEventListener listener) {
+        PinPadView.OnPinEventListener[] result = new PinPadView.OnPinEventListener[listeners.length + 1];
+        System.arraycopy(listeners, 0, result, 0, listeners.length);
+        result[listeners.length] = listener;
+        return result;
+    }
+
+    private static PinPadView.OnPinEventListener[] remove(PinPadView.OnPinEventListener[] listeners,
+                                                          PinPadView.OnPinEventListener listener) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                if (listeners.length == 1) {
+                    return EMPTY;
+                }
+                PinPadView.OnPinEventListener[] result = new PinPadView.OnPinEventListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, result, 0, i);
+                System.arraycopy(listeners, i + 1, result, i, listeners.length - i - 1);
+                return result;
+            }
+        }
+        return listeners;
+    }
+}
@@ -3,14 +3,18 @@ package co.paystack.android.design.widget;
 import android.content.Context;
 import android.content.res.ColorStateList;
 import android.content.res.TypedArray;
+import android.graphics.Canvas;
 import android.graphics.Color;
+import android.graphics.Typeface;
 import android.graphics.drawable.Drawable;
+import android.text.TextPaint;
 import android.util.AttributeSet;
 import android.util.TypedValue;
 import android.view.KeyEvent;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewStub;
 import android.widget.ImageView;
 import android.widget.RelativeLayout;
 import android.widget.TextView;
@@ -29,20 +33,51 @@ class PinPadButton extends ForegroundRelativeLayout {
     private float mTextSizeAlpha;
     private int mDrawableSize;
     private Drawable mButtonDrawable;
+    /**
+     * Where the drawable came from, so it can be dropped while detached and reloaded
+     */
+    private int mButtonDrawableRes;
+    private int mGlyph = KeyGlyphDrawable.GLYPH_NONE;
+    private boolean mDrawablesReleased;
+    private boolean mLiteRendering;
+    private boolean mWasPressed;
+    private OnPressedChangeListener mPressedChangeListener;
     private String mTextNumeric;
     private String mTextAlphabet;
 
     private TextView mTextViewNumeric;
+    /**
+     * Alphabet text and icon are only inflated from their stubs once the button needs them
+     */
+    private ViewStub mAlphabetStub;
     private TextView mTextViewAlphabet;
+    private ViewStub mIconStub;
     private ImageView mImageIcon;
+    private ForegroundRelativeLayout mContentLayout;
 
-    private ColorStateList mTextColor = ColorStateList.valueOf(DEFAULT_TEXT_COLOR);
+    private Typeface mTypeface;
+    private ColorStateList mTextColor = PinPadResources.getColorStateList(DEFAULT_TEXT_COLOR);
     private OnButtonClickListener mButtonClickListener;
+    private PinPadDiagnostics mDiagnostics;
+    private KeyInputDispatcher mInputDispatcher;
+    /**
+     * Slot of this key in the pinpad's {@link PinPadKeyLayout}
+     */
+    private int mKeySlot = -1;
 
     public interface OnButtonClickListener {
         void onButtonClick(PinPadButton button);
     }
 
+    interface OnPressedChangeListener {
+        /**
+         * Called when a key in lite rendering mode is pressed or released
+         *
+         * @param button - the key
+         */
+        void onPressedChanged(PinPadButton button);
+    }
+
     public PinPadButton(Context context) {
         super(context);
         init(context, null, 0);
@@ -59,9 +94,10 @@ class PinPadButton extends ForegroundRelativeLayout {
 
     private void init(@NonNull Context context, AttributeSet attrs, int defStyle) {
         View view = inflate(context, R.layout.layout_button, this);
+        mContentLayout = (ForegroundRelativeLayout) getChildAt(0);
         mTextViewNumeric = (TextView) view.findViewById(R.id.numeric_text);
-        mTextViewAlphabet = (TextView) view.findViewById(R.id.alphabet_text);
-        mImageIcon = (ImageView) view.findViewById(R.id.pinbutton_icon);
+        mAlphabetStub = (ViewStub) view.findViewById(R.id.alphabet_text_stub);
+        mIconStub = (ViewStub) view.findViewById(R.id.pinbutton_icon_stub);
 
         if (attrs != null) {
             TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.PinPadView, defStyle, 0);
@@ -73,8 +109,12 @@ class PinPadButton extends ForegroundRelativeLayout {
             mDrawableSize = a.getDimensionPixelSize(R.styleable.PinPadView_button_drawable_size,
                     15);
             if (a.hasValue(R.styleable.PinPadView_button_drawable)) {
-                mButtonDrawable = a.getDrawable(R.styleable.PinPadView_button_drawable);
+                mButtonDrawableRes = a.getResourceId(R.styleable.PinPadView_button_drawable, 0);
+                mButtonDrawable = mButtonDrawableRes != 0
+                        ? PinPadResources.getDrawable(context, mButtonDrawableRes)
+                        : a.getDrawable(R.styleable.PinPadView_button_drawable);
             }
+            int glyph = a.getInt(R.styleable.PinPadView_button_glyph, KeyGlyphDrawable.GLYPH_NONE);
             if (a.hasValue(R.styleable.PinPadView_button_text_numeric)) {
                 mTextNumeric = a.getString(R.styleable.PinPadView_button_text_numeric);
             }
@@ -86,29 +126,28 @@ class PinPadButton extends ForegroundRelativeLayout {
             }
 
             a.recycle();
+
+            if (mButtonDrawable == null && glyph != KeyGlyphDrawable.GLYPH_NONE) {
+                mGlyph = glyph;
+                mButtonDrawable = new KeyGlyphDrawable(glyph, mTextColor.getDefaultColor());
+            }
         }
 
         if (mButtonDrawable == null) {
             if (mTextNumeric != null && !mTextNumeric.isEmpty()) {
                 // create numeric textview
-                mImageIcon.setVisibility(GONE);
                 mTextViewNumeric.setVisibility(VISIBLE);
                 mTextViewNumeric.setTextSize(TypedValue.COMPLEX_UNIT_PX, mTextSizeNumeric);
                 mTextViewNumeric.setText(mTextNumeric);
 
             }
-            if (mTextAlphabet != null && !mTextAlphabet.isEmpty()) {
-                // create alphabet textview
-                mImageIcon.setVisibility(GONE);
-                mTextViewAlphabet.setVisibility(VISIBLE);
-                mTextViewAlphabet.setTextSize(TypedValue.COMPLEX_UNIT_PX, mTextSizeAlpha);
-                mTextViewAlphabet.setText(mTextAlphabet);
-            }
+            // the alphabet textview is created once the button is attached, by which time
+            // the pinpad has applied its own alphabet text size
         } else {
-            mImageIcon.setVisibility(VISIBLE);
-            mTextViewAlphabet.setVisibility(GONE);
             mTextViewNumeric.setVisibility(GONE);
             // create icon
+            mImageIcon = (ImageView) mIconStub.inflate();
+            mIconStub = null;
             RelativeLayout.LayoutParams params = new RelativeLayout.LayoutParams(mDrawableSize, mDrawableSize);
             params.addRule(RelativeLayout.CENTER_IN_PARENT, RelativeLayout.TRUE);
             mImageIcon.setLayoutParams(params);
@@ -123,6 +162,75 @@ class PinPadButton extends ForegroundRelativeLayout {
         setClickable(true);
     }
 
+    /**
+     * Drops the ripple foreground so the key draws nothing of its own and takes the touches
+     * itself, leaving the pinpad to draw the pressed state; or restores the theme's ripple
+     *
+     * @param lite - true for the lite render profile
+     */
+    void setLiteRendering(boolean lite) {
+        mLiteRendering = lite;
+        mContentLayout.setClickable(!lite);
+        if (mDrawablesReleased) {
+            return;
+        }
+        if (lite) {
+            mContentLayout.setForeground(null);
+        } else {
+            TypedArray a = getContext().obtainStyledAttributes(new int[]{PinPadCompat.SELECTABLE_ITEM_BACKGROUND});
+            mContentLayout.setForeground(a.getDrawable(0));
+            a.recycle();
+        }
+    }
+
+    /**
+     * Drops the foreground and, when it can be reloaded, the icon drawable
+     */
+    void releaseDrawables() {
+        if (mDrawablesReleased) {
+            return;
+        }
+        mDrawablesReleased = true;
+        mContentLayout.setForeground(null);
+        if (mImageIcon != null && (mButtonDrawableRes != 0 || mGlyph != KeyGlyphDrawable.GLYPH_NONE)) {
+            mImageIcon.setImageDrawable(null);
+            mButtonDrawable = null;
+        }
+    }
+
+    /**
+     * Reloads what {@link #releaseDrawables()} dropped
+     */
+    void restoreDrawables() {
+        if (!mDrawablesReleased) {
+            return;
+        }
+        mDrawablesReleased = false;
+        setLiteRendering(mLiteRendering);
+        if (mImageIcon != null && mButtonDrawable == null) {
+            mButtonDrawable = mGlyph != KeyGlyphDrawable.GLYPH_NONE
+                    ? new KeyGlyphDrawable(mGlyph, mTextColor.getDefaultColor())
+                    : PinPadResources.getDrawable(getContext(), mButtonDrawableRes);
+            mImageIcon.setImageDrawable(mButtonDrawable);
+        }
+    }
+
+    void setPressedChangeListener(OnPressedChangeListener listener) {
+        mPressedChangeListener = listener;
+    }
+
+    @Override
+    protected void drawableStateChanged() {
+        super.drawableStateChanged();
+        boolean pressed = isPressed();
+        if (pressed != mWasPressed) {
+            mWasPressed = pressed;
+            if (mLiteRendering && mPressedChangeListener != null) {
+                mPressedChangeListener.onPressedChanged(this);
+            }
+        }
+    }
+
     /**
      * Sets a button click listener for the button
      *
@@ -134,11 +242,37 @@ class PinPadButton extends ForegroundRelativeLayout {
 
     public void setTextColor(ColorStateList colorStateList) {
         if (colorStateList != null) {
-            mTextViewAlphabet.setTextColor(colorStateList);
+            mTextColor = colorStateList;
+            if (mTextViewAlphabet != null) {
+                mTextViewAlphabet.setTextColor(colorStateList);
+            }
             mTextViewNumeric.setTextColor(colorStateList);
+            if (mButtonDrawable instanceof KeyGlyphDrawable) {
+                ((KeyGlyphDrawable) mButtonDrawable).setColor(colorStateList.getDefaultColor());
+            }
         }
     }
 
+    /**
+     * Sets the typeface for both the alphabet and numeric texts
+     *
+     * @param typeface - typeface for the texts
+     */
+    public void setTypeface(Typeface typeface) {
+        mTypeface = typeface;
+        mTextViewNumeric.setTypeface(typeface);
+        if (mTextViewAlphabet != null) {
+            mTextViewAlphabet.setTypeface(typeface);
+        }
+    }
+
+    /**
+     * Gets the paint of the numeric text, for measuring labels
+     */
+    TextPaint getNumericPaint() {
+        return mTextViewNumeric.getPaint();
+    }
+
     public void setNumericTextSize(float textSize) {
         if (mTextViewNumeric != null) {
             mTextSizeNumeric = textSize;
@@ -148,9 +282,8 @@ class PinPadButton extends ForegroundRelativeLayout {
     }
 
     public void setAlphabetTextSize(float textSize) {
-        if (mTextViewAlphabet != null) {
-            mTextSizeAlpha = textSize;
-            mTextViewAlphabet.setTextSize(TypedValue.COMPLEX_UNIT_PX, textSize);
+        mTextSizeAlpha = textSize;
+        if (syncAlphabetView()) {
             requestLayout();
         }
     }
@@ -171,10 +304,41 @@ class PinPadButton extends ForegroundRelativeLayout {
         if (mTextViewNumeric != null) {
             mTextNumeric = text;
             mTextViewNumeric.setText(text);
+            if (mImageIcon == null) {
+                mTextViewNumeric.setVisibility(text != null && !text.isEmpty() ? VISIBLE : GONE);
+            }
             requestLayout();
         }
     }
 
+    /**
+     * Shows a built-in glyph instead of text, for keys created in code
+     *
+     * @param glyph - one of the {@link KeyGlyphDrawable} GLYPH_ constants
+     */
+    void setGlyph(int glyph) {
+        if (glyph == KeyGlyphDrawable.GLYPH_NONE || mImageIcon != null) {
+            return;
+        }
+        mGlyph = glyph;
+        mButtonDrawable = new KeyGlyphDrawable(glyph, mTextColor.getDefaultColor());
+        mTextViewNumeric.setVisibility(GONE);
+        mImageIcon = (ImageView) mIconStub.inflate();
+        mIconStub = null;
+        RelativeLayout.LayoutParams params = new RelativeLayout.LayoutParams(mDrawableSize, mDrawableSize);
+        params.addRule(RelativeLayout.CENTER_IN_PARENT, RelativeLayout.TRUE);
+        mImageIcon.setLayoutParams(params);
+        mImageIcon.setImageDrawable(mButtonDrawable);
+    }
+
+    void setKeySlot(int slot) {
+        mKeySlot = slot;
+    }
+
+    int getKeySlot() {
+        return mKeySlot;
+    }
+
     /**
      * Gets the alphabet text for the button
      */
@@ -188,18 +352,49 @@ class PinPadButton extends ForegroundRelativeLayout {
      * @param text - alphabet text to display on the button
      */
     public void setAlphabetText(String text) {
-        if (mTextViewAlphabet != null) {
-            mTextAlphabet = text;
-            mTextViewAlphabet.setText(text);
+        mTextAlphabet = text;
+        if (syncAlphabetView()) {
             requestLayout();
         }
     }
 
+    /**
+     * Shows or hides the alphabet text, creating its textview the first time it is shown.
+     * Until the button is attached, creation is deferred to {@link #onAttachedToWindow()}.
+     *
+     * @return true if the alphabet textview exists and was updated
+     */
+    private boolean syncAlphabetView() {
+        boolean show = mImageIcon == null && mTextAlphabet != null
+                && !mTextAlphabet.isEmpty() && mTextSizeAlpha > 0;
+        if (mTextViewAlphabet == null) {
+            if (!show || getWindowToken() == null) {
+                return false;
+            }
+            mTextViewAlphabet = (TextView) mAlphabetStub.inflate();
+            mAlphabetStub = null;
+            mTextViewAlphabet.setTextColor(mTextColor);
+            if (mTypeface != null) {
+                mTextViewAlphabet.setTypeface(mTypeface);
+            }
+        }
+        mTextViewAlphabet.setVisibility(show ? VISIBLE : GONE);
+        mTextViewAlphabet.setTextSize(TypedValue.COMPLEX_UNIT_PX, mTextSizeAlpha);
+        mTextViewAlphabet.setText(mTextAlphabet);
+        return true;
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        syncAlphabetView();
+    }
+
     /**
      * @return true if the button is an image button, false otherwise
      */
     public boolean isImageButton() {
-        return mButtonDrawable != null;
+        return mImageIcon != null;
     }
 
     /**
@@ -208,8 +403,8 @@ class PinPadButton extends ForegroundRelativeLayout {
      * @param imageSize - required image size in pixels
      */
     public void setImageIconSize(int imageSize) {
+        mDrawableSize = imageSize;
         if (mImageIcon != null) {
-            mDrawableSize = imageSize;
             RelativeLayout.LayoutParams params = new RelativeLayout.LayoutParams(mDrawableSize, mDrawableSize);
             params.addRule(RelativeLayout.CENTER_IN_PARENT, RelativeLayout.TRUE);
             mImageIcon.setLayoutParams(params);
@@ -223,16 +418,85 @@ class PinPadButton extends ForegroundRelativeLayout {
      * @param color - @{@link ColorInt} representation of the color
      */
     public void setTextColor(@ColorInt int color) {
-        setTextColor(ColorStateList.valueOf(color));
+        setTextColor(PinPadResources.getColorStateList(color));
         requestLayout();
     }
 
+    void setDiagnostics(PinPadDiagnostics diagnostics) {
+        mDiagnostics = diagnostics;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        if (mDiagnostics != null) {
+            mDiagnostics.count(PinPadDiagnostics.TARGET_BUTTON, PinPadDiagnostics.EVENT_MEASURE);
+        }
+        super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        if (mDiagnostics != null) {
+            mDiagnostics.count(PinPadDiagnostics.TARGET_BUTTON, PinPadDiagnostics.EVENT_LAYOUT);
+        }
+        super.onLayout(changed, l, t, r, b);
+    }
+
+    @Override
+    protected void dispatchDraw(Canvas canvas) {
+        if (mDiagnostics != null) {
+            mDiagnostics.count(PinPadDiagnostics.TARGET_BUTTON, PinPadDiagnostics.EVENT_DRAW);
+        }
+        super.dispatchDraw(canvas);
+    }
+
+    @Override
+    public void requestLayout() {
+        if (mDiagnostics != null) {
+            mDiagnostics.count(PinPadDiagnostics.TARGET_BUTTON, PinPadDiagnostics.EVENT_REQUEST_LAYOUT);
+        }
+        super.requestLayout();
+    }
+
+    /**
+     * Routes this key's touches through the pinpad's input pipeline, which orders commits
+     * across pointers. Without a dispatcher the key commits on its own ACTION_UP.
+     *
+     * @param dispatcher - {@link KeyInputDispatcher} dispatcher
+     */
+    void setInputDispatcher(KeyInputDispatcher dispatcher) {
+        mInputDispatcher = dispatcher;
+    }
+
+    /**
+     * Notifies the click listener that this key has been committed
+     */
+    void performButtonClick() {
+        if (mButtonClickListener != null) {
+            mButtonClickListener.onButtonClick(this);
+        }
+    }
+
     @Override
     public boolean dispatchTouchEvent(MotionEvent event) {
-        if (event.getAction() == MotionEvent.ACTION_UP) {
-            if (mButtonClickListener != null) {
-                mButtonClickListener.onButtonClick(this);
+        if (mInputDispatcher != null) {
+            switch (event.getActionMasked()) {
+                case MotionEvent.ACTION_DOWN:
+                case MotionEvent.ACTION_POINTER_DOWN:
+                    mInputDispatcher.onPointerDown(this, event.getPointerId(event.getActionIndex()),
+                            event.getEventTime());
+                    break;
+                case MotionEvent.ACTION_UP:
+                case MotionEvent.ACTION_POINTER_UP:
+                    mInputDispatcher.onPointerUp(this, event.getPointerId(event.getActionIndex()),
+                            event.getEventTime());
+                    break;
+                case MotionEvent.ACTION_CANCEL:
+                    mInputDispatcher.onCancel(this, event.getEventTime());
+                    break;
             }
+        } else if (event.getAction() == MotionEvent.ACTION_UP) {
+            performButtonClick();
         }
         return super.dispatchTouchEvent(event);
     }
@@ -240,9 +504,7 @@ class PinPadButton extends ForegroundRelativeLayout {
     @Override
     public boolean dispatchKeyEvent(KeyEvent event) {
         if (event.getAction() == KeyEvent.ACTION_UP && (event.getKeyCode() == KeyEvent.KEYCODE_DPAD_CENTER || event.getKeyCode() == KeyEvent.KEYCODE_ENTER)) {
-            if (mButtonClickListener != null) {
-                mButtonClickListener.onButtonClick(this);
-            }
+            performButtonClick();
         }
         return super.dispatchKeyEvent(event);
     }
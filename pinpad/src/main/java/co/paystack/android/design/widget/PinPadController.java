@@ -0,0 +1,146 @@
+package co.paystack.android.design.widget;
+
+import android.os.Handler;
+import android.os.Looper;
+
+/**
+ * PinPadController
+ * <p>
+ * Thread-safe facade for driving a {@link PinPadView} from background threads. Commands can be
+ * issued from any thread; they are merged (the last value of each command wins) and applied
+ * together on the UI thread by a single posted message, instead of one posted Runnable per call.
+ * Merged commands are applied in the order they were last issued.
+ * <p>
+ * Usage:
+ * <pre>
+ * PinPadController controller = pinPadView.getController();
+ * // on a background thread
+ * controller.setPinLength(6);
+ * controller.setPromptText("Enter the OTP sent to your phone");
+ * </pre>
+ */
+public class PinPadController implements Runnable {
+    private static final int COMMAND_PIN_LENGTH = 0;
+    private static final int COMMAND_PROMPT_TEXT = 1;
+    private static final int COMMAND_CLEAR = 2;
+    private static final int COMMAND_LOCKED = 3;
+    private static final int COMMAND_COUNT = 4;
+
+    private final PinPadView mPinPadView;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final Object mLock = new Object();
+
+    private int mPendingCommands;
+    /**
+     * When each pending command was last issued, so they are applied in issue order
+     */
+    private final long[] mIssuedAt = new long[COMMAND_COUNT];
+    private long mIssueCount;
+    private final long[] mRunIssuedAt = new long[COMMAND_COUNT];
+    private int mPinLength;
+    private String mPromptText;
+    private boolean mLocked;
+    private boolean mPosted;
+
+    PinPadController(PinPadView pinPadView) {
+        mPinPadView = pinPadView;
+    }
+
+    /**
+     * @see PinPadView#setPinLength(int)
+     */
+    public void setPinLength(int length) {
+        synchronized (mLock) {
+            mPinLength = length;
+            schedule(COMMAND_PIN_LENGTH);
+        }
+    }
+
+    /**
+     * @see PinPadView#setPromptText(String)
+     */
+    public void setPromptText(String promptText) {
+        synchronized (mLock) {
+            mPromptText = promptText;
+            schedule(COMMAND_PROMPT_TEXT);
+        }
+    }
+
+    /**
+     * @see PinPadView#clear()
+     */
+    public void clear() {
+        synchronized (mLock) {
+            schedule(COMMAND_CLEAR);
+        }
+    }
+
+    /**
+     * @see PinPadView#setLocked(boolean)
+     */
+    public void setLocked(boolean locked) {
+        synchronized (mLock) {
+            mLocked = locked;
+            schedule(COMMAND_LOCKED);
+        }
+    }
+
+    private void schedule(int command) {
+        mPendingCommands |= 1 << command;
+        mIssuedAt[command] = mIssueCount++;
+        if (!mPosted) {
+            mPosted = true;
+            mHandler.post(this);
+        }
+    }
+
+    /**
+     * Applies every pending command on the UI thread
+     */
+    @Override
+    public void run() {
+        int commands;
+        int pinLength;
+        String promptText;
+        boolean locked;
+        synchronized (mLock) {
+            commands = mPendingCommands;
+            pinLength = mPinLength;
+            promptText = mPromptText;
+            locked = mLocked;
+            System.arraycopy(mIssuedAt, 0, mRunIssuedAt, 0, COMMAND_COUNT);
+            mPendingCommands = 0;
+            mPosted = false;
+        }
+
+        while (commands != 0) {
+            // apply the pending command issued earliest
+            int next = -1;
+            for (int command = 0; command < COMMAND_COUNT; command++) {
+                if ((commands & (1 << command)) != 0
+                        && (next == -1 || mRunIssuedAt[command] < mRunIssuedAt[next])) {
+                    next = command;
+                }
+            }
+            commands &= ~(1 << next);
+            apply(next, pinLength, promptText, locked);
+        }
+    }
+
+    private void apply(int command, int pinLength, String promptText, boolean locked) {
+        switch (command) {
+            case COMMAND_PIN_LENGTH:
+                mPinPadView.setPinLength(pinLength);
+                break;
+            case COMMAND_PROMPT_TEXT:
+                mPinPadView.setPromptText(promptText);
+                break;
+            case COMMAND_CLEAR:
+                mPinPadView.clear();
+                break;
+            case COMMAND_LOCKED:
+                mPinPadView.setLocked(locked);
+                break;
+        }
+    }
+}
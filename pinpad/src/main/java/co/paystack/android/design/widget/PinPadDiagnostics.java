@@ -0,0 +1,140 @@
+package co.paystack.android.design.widget;
+
+/**
+ * PinPadDiagnostics
+ * <p>
+ * Counts how often a {@link PinPadView}, its keys and its indicators are measured, laid out
+ * and drawn, and which setters request layout on the keypad. Counting is off by default and
+ * only touches primitive counters while enabled, so it is safe to leave wired in production.
+ * <p>
+ * Counters are updated on the UI thread; {@link #snapshot()} and {@link #reset()} are meant to
+ * be called from the UI thread as well.
+ */
+public final class PinPadDiagnostics {
+    public static final int TARGET_PINPAD = 0;
+    public static final int TARGET_BUTTON = 1;
+    public static final int TARGET_INDICATOR = 2;
+    static final int TARGET_COUNT = 3;
+
+    public static final int EVENT_MEASURE = 0;
+    public static final int EVENT_LAYOUT = 1;
+    public static final int EVENT_DRAW = 2;
+    public static final int EVENT_REQUEST_LAYOUT = 3;
+    static final int EVENT_COUNT = 4;
+
+    /**
+     * Sources of {@link PinPadView} layout requests
+     */
+    public static final int SOURCE_OTHER = 0;
+    public static final int SOURCE_PIN_LENGTH = 1;
+    public static final int SOURCE_PROMPT = 2;
+    public static final int SOURCE_TEXT_STYLE = 3;
+    public static final int SOURCE_ICON_SIZE = 4;
+    public static final int SOURCE_KEY_LAYOUT = 5;
+    /**
+     * Fitted text sizes applied during measure, which re-lay out the key and prompt text
+     */
+    public static final int SOURCE_AUTO_SIZE = 6;
+    static final int SOURCE_COUNT = 7;
+
+    private final long[] mCounters = new long[TARGET_COUNT * EVENT_COUNT];
+    private final long[] mSources = new long[SOURCE_COUNT];
+    private boolean mEnabled;
+
+    PinPadDiagnostics() {
+    }
+
+    /**
+     * Turns counting on or off. Counters keep their values when counting is turned off.
+     *
+     * @param enabled - true to start counting
+     */
+    public void setEnabled(boolean enabled) {
+        mEnabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return mEnabled;
+    }
+
+    /**
+     * Takes a copy of the current counters
+     *
+     * @return {@link Snapshot} snapshot
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(mCounters.clone(), mSources.clone());
+    }
+
+    /**
+     * Resets all the counters to zero
+     */
+    public void reset() {
+        for (int i = 0; i < mCounters.length; i++) {
+            mCounters[i] = 0;
+        }
+        for (int i = 0; i < mSources.length; i++) {
+            mSources[i] = 0;
+        }
+    }
+
+    void count(int target, int event) {
+        if (mEnabled) {
+            mCounters[target * EVENT_COUNT + event]++;
+        }
+    }
+
+    void countSource(int source) {
+        if (mEnabled) {
+            mSources[source]++;
+        }
+    }
+
+    /**
+     * Immutable copy of the diagnostics counters
+     */
+    public static final class Snapshot {
+        private final long[] mCounters;
+        private final long[] mSources;
+
+        Snapshot(long[] counters, long[] sources) {
+            mCounters = counters;
+            mSources = sources;
+        }
+
+        /**
+         * @param target - one of the TARGET_ constants
+         * @param event  - one of the EVENT_ constants
+         * @return number of times the event happened on the target
+         */
+        public long getCount(int target, int event) {
+            return mCounters[target * EVENT_COUNT + event];
+        }
+
+        /**
+         * @param source - one of the SOURCE_ constants
+         * @return number of layout requests the source made on the keypad
+         */
+        public long getRequestLayoutCount(int source) {
+            return mSources[source];
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder("PinPadDiagnostics{");
+            for (int target = 0; target < TARGET_COUNT; target++) {
+                builder.append(target == 0 ? "" : ", ")
+                        .append(target).append('=')
+                        .append(getCount(target, EVENT_MEASURE)).append('/')
+                        .append(getCount(target, EVENT_LAYOUT)).append('/')
+                        .append(getCount(target, EVENT_DRAW)).append('/')
+                        .append(getCount(target, EVENT_REQUEST_LAYOUT));
+            }
+            builder.append(", sources=");
+            for (int source = 0; source < SOURCE_COUNT; source++) {
+                builder.append(source == 0 ? "" : "/").append(mSources[source]);
+            }
+            return builder.append('}').toString();
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package co.paystack.android.design.widget;
+
+/**
+ * PinPadKeyLayout
+ * <p>
+ * Describes the keys of a {@link PinPadView}: how many columns the grid has and, row by row, the
+ * type and column span of every key. The pinpad builds its grid from this description in code,
+ * so other key orders or extra keys do not need a copy of the pinpad layout XML.
+ * <p>
+ * Keys are numbered in slots, left to right and top to bottom, and the description is kept in
+ * primitive tables indexed by slot, so the pinpad finds what a key does in constant time.
+ * <pre>
+ * PinPadKeyLayout layout = new PinPadKeyLayout.Builder(3)
+ *         .addDigits(1, 2, 3)
+ *         .addDigits(4, 5, 6)
+ *         .addDigits(7, 8, 9)
+ *         .addKey(PinPadKeyLayout.KEY_CLEAR)
+ *         .addDigit(0)
+ *         .addKey(PinPadKeyLayout.KEY_BACK)
+ *         .addKey(PinPadKeyLayout.KEY_DONE, 3)
+ *         .build();
+ * </pre>
+ */
+public final class PinPadKeyLayout {
+    /**
+     * Enters a digit; the digit shown moves around when digits are placed randomly
+     */
+    public static final int KEY_DIGIT = 0;
+    /**
+     * Removes the last digit
+     */
+    public static final int KEY_BACK = 1;
+    /**
+     * Submits the pin or amount
+     */
+    public static final int KEY_DONE = 2;
+    /**
+     * Enters two zeros, e.g. for amounts
+     */
+    public static final int KEY_DOUBLE_ZERO = 3;
+    /**
+     * Clears the pin or amount
+     */
+    public static final int KEY_CLEAR = 4;
+    /**
+     * Notifies the {@link PinPadView.OnBiometricKeyListener}, e.g. to show a fingerprint prompt
+     */
+    public static final int KEY_BIOMETRIC = 5;
+    /**
+     * Leaves the cell empty
+     */
+    public static final int KEY_EMPTY = 6;
+    private static final int KEY_TYPE_COUNT = 7;
+
+    /**
+     * 1 2 3 / 4 5 6 / 7 8 9 / back 0 done, as on phones
+     */
+    public static final PinPadKeyLayout PHONE = new Builder(3)
+            .addDigits(1, 2, 3)
+            .addDigits(4, 5, 6)
+            .addDigits(7, 8, 9)
+            .addKey(KEY_BACK).addDigit(0).addKey(KEY_DONE)
+            .build();
+
+    /**
+     * 7 8 9 / 4 5 6 / 1 2 3 / back 0 done, as on calculators and numeric keyboards
+     */
+    public static final PinPadKeyLayout CALCULATOR = new Builder(3)
+            .addDigits(7, 8, 9)
+            .addDigits(4, 5, 6)
+            .addDigits(1, 2, 3)
+            .addKey(KEY_BACK).addDigit(0).addKey(KEY_DONE)
+            .build();
+
+    /**
+     * 1 2 3 / 4 5 6 / 7 8 9 / 00 0 back / clear done, as on payment terminals
+     */
+    public static final PinPadKeyLayout POS = new Builder(3)
+            .addDigits(1, 2, 3)
+            .addDigits(4, 5, 6)
+            .addDigits(7, 8, 9)
+            .addKey(KEY_DOUBLE_ZERO).addDigit(0).addKey(KEY_BACK)
+            .addKey(KEY_CLEAR).addKey(KEY_DONE, 2)
+            .build();
+
+    private final int mColumnCount;
+    private final int mRowCount;
+    private final int[] mTypes;
+    private final int[] mDigits;
+    private final int[] mSpans;
+    private final int[] mRows;
+    /**
+     * Slot of the key for each digit, and of the first key of each type
+     */
+    private final int[] mDigitSlots = new int[10];
+    private final int[] mTypeSlots = new int[KEY_TYPE_COUNT];
+
+    private PinPadKeyLayout(Builder builder) {
+        int count = builder.mCount;
+        mColumnCount = builder.mColumnCount;
+        mTypes = copyOf(builder.mTypes, count);
+        mDigits = copyOf(builder.mDigits, count);
+        mSpans = copyOf(builder.mSpans, count);
+        mRows = new int[count];
+
+        for (int i = 0; i < mTypeSlots.length; i++) {
+            mTypeSlots[i] = -1;
+        }
+        for (int i = 0; i < mDigitSlots.length; i++) {
+            mDigitSlots[i] = -1;
+        }
+        int row = 0;
+        int column = 0;
+        for (int slot = 0; slot < count; slot++) {
+            if (column + mSpans[slot] > mColumnCount) {
+                throw new IllegalArgumentException("key " + slot + " does not fit in its row");
+            }
+            mRows[slot] = row;
+            column += mSpans[slot];
+            if (column == mColumnCount) {
+                row++;
+                column = 0;
+            }
+
+            int type = mTypes[slot];
+            if (type == KEY_DIGIT) {
+                if (mDigitSlots[mDigits[slot]] != -1) {
+                    throw new IllegalArgumentException("digit " + mDigits[slot] + " appears twice");
+                }
+                mDigitSlots[mDigits[slot]] = slot;
+            } else if (type != KEY_EMPTY && mTypeSlots[type] != -1) {
+                throw new IllegalArgumentException("key type " + type + " appears twice");
+            }
+            if (mTypeSlots[type] == -1) {
+                mTypeSlots[type] = slot;
+            }
+        }
+        if (column != 0) {
+            throw new IllegalArgumentException("the last row is not full");
+        }
+        mRowCount = row;
+
+        for (int digit = 0; digit < mDigitSlots.length; digit++) {
+            if (mDigitSlots[digit] == -1) {
+                throw new IllegalArgumentException("digit " + digit + " is missing");
+            }
+        }
+        if (mTypeSlots[KEY_BACK] == -1 || mTypeSlots[KEY_DONE] == -1) {
+            throw new IllegalArgumentException("a back key and a done key are required");
+        }
+    }
+
+    public int getColumnCount() {
+        return mColumnCount;
+    }
+
+    public int getRowCount() {
+        return mRowCount;
+    }
+
+    /**
+     * Gets the number of keys, including empty cells
+     */
+    public int getKeyCount() {
+        return mTypes.length;
+    }
+
+    /**
+     * @param slot - key slot, from 0 to {@link #getKeyCount()} - 1
+     * @return one of the KEY_ constants
+     */
+    public int getKeyType(int slot) {
+        return mTypes[slot];
+    }
+
+    /**
+     * @param slot - key slot
+     * @return digit the key shows when digits are not placed randomly, or -1 for other keys
+     */
+    public int getDigit(int slot) {
+        return mDigits[slot];
+    }
+
+    /**
+     * @param slot - key slot
+     * @return number of columns the key spans
+     */
+    public int getSpan(int slot) {
+        return mSpans[slot];
+    }
+
+    /**
+     * @param slot - key slot
+     * @return row the key is in
+     */
+    public int getRow(int slot) {
+        return mRows[slot];
+    }
+
+    /**
+     * @param digit - digit from 0 to 9
+     * @return slot of the key showing the digit when digits are not placed randomly
+     */
+    public int getSlotForDigit(int digit) {
+        return mDigitSlots[digit];
+    }
+
+    /**
+     * @param type - one of the KEY_ constants
+     * @return slot of the first key of the type, or -1 if there is none
+     */
+    public int getSlotForType(int type) {
+        return mTypeSlots[type];
+    }
+
+    private static int[] copyOf(int[] array, int length) {
+        int[] copy = new int[length];
+        System.arraycopy(array, 0, copy, 0, Math.min(array.length, length));
+        return copy;
+    }
+
+    /**
+     * Builds a {@link PinPadKeyLayout} one key at a time, filling each row before the next
+     */
+    public static final class Builder {
+        private final int mColumnCount;
+        private int[] mTypes = new int[16];
+        private int[] mDigits = new int[16];
+        private int[] mSpans = new int[16];
+        private int mCount;
+
+        /**
+         * @param columnCount - number of columns in the grid
+         */
+        public Builder(int columnCount) {
+            if (columnCount <= 0) {
+                throw new IllegalArgumentException("columnCount must be positive");
+            }
+            mColumnCount = columnCount;
+        }
+
+        /**
+         * Adds a digit key spanning one column
+         *
+         * @param digit - digit from 0 to 9
+         * @return this builder
+         */
+        public Builder addDigit(int digit) {
+            return addDigit(digit, 1);
+        }
+
+        /**
+         * Adds a digit key
+         *
+         * @param digit - digit from 0 to 9
+         * @param span  - number of columns the key spans
+         * @return this builder
+         */
+        public Builder addDigit(int digit, int span) {
+            if (digit < 0 || digit > 9) {
+                throw new IllegalArgumentException("not a digit: " + digit);
+            }
+            return add(KEY_DIGIT, digit, span);
+        }
+
+        /**
+         * Adds digit keys spanning one column each
+         *
+         * @param digits - digits from 0 to 9
+         * @return this builder
+         */
+        public Builder addDigits(int... digits) {
+            for (int digit : digits) {
+                addDigit(digit);
+            }
+            return this;
+        }
+
+        /**
+         * Adds a key spanning one column
+         *
+         * @param type - one of the KEY_ constants other than {@link #KEY_DIGIT}
+         * @return this builder
+         */
+        public Builder addKey(int type) {
+            return addKey(type, 1);
+        }
+
+        /**
+         * Adds a key
+         *
+         * @param type - one of the KEY_ constants other than {@link #KEY_DIGIT}
+         * @param span - number of columns the key spans
+         * @return this builder
+         */
+        public Builder addKey(int type, int span) {
+            if (type <= KEY_DIGIT || type >= KEY_TYPE_COUNT) {
+                throw new IllegalArgumentException("not a key type: " + type);
+            }
+            return add(type, -1, span);
+        }
+
+        /**
+         * @return {@link PinPadKeyLayout} layout
+         * @throws IllegalArgumentException if a row is not filled exactly, a digit is missing or
+         *                                  repeated, or there is no back or done key
+         */
+        public PinPadKeyLayout build() {
+            return new PinPadKeyLayout(this);
+        }
+
+        private Builder add(int type, int digit, int span) {
+            if (span <= 0 || span > mColumnCount) {
+                throw new IllegalArgumentException("span must be between 1 and " + mColumnCount);
+            }
+            if (mCount == mTypes.length) {
+                mTypes = copyOf(mTypes, mCount * 2);
+                mDigits = copyOf(mDigits, mCount * 2);
+                mSpans = copyOf(mSpans, mCount * 2);
+            }
+            mTypes[mCount] = type;
+            mDigits[mCount] = digit;
+            mSpans[mCount] = span;
+            mCount++;
+            return this;
+        }
+    }
+}
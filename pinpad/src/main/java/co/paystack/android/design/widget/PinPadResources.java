@@ -0,0 +1,285 @@
+package co.paystack.android.design.widget;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.graphics.Color;
+import android.graphics.Typeface;
+import android.graphics.drawable.Drawable;
+import android.graphics.drawable.GradientDrawable;
+import android.graphics.drawable.StateListDrawable;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.SparseArray;
+import android.util.StateSet;
+
+import androidx.annotation.ColorInt;
+import androidx.annotation.DrawableRes;
+import androidx.annotation.FontRes;
+
+import java.util.ArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PinPadResources
+ * <p>
+ * Process-wide cache of the immutable resources every pinpad needs: text color lists, indicator
+ * drawables, key drawables and typefaces. Drawables are shared through their {@link Drawable.ConstantState},
+ * so each view still gets its own drawable instance but the decoding and building happens once.
+ * <p>
+ * Entries are scoped to the configuration they were built for (density and night mode) and the
+ * cache empties itself when the configuration changes or the system asks apps to trim memory.
+ * Only used from the UI thread.
+ */
+final class PinPadResources {
+    private static final SparseArray<ColorStateList> sColorStateLists = new SparseArray<>();
+    private static final SparseArray<Drawable.ConstantState> sDrawables = new SparseArray<>();
+    /**
+     * Indicator drawables, keyed in parallel primitive tables: both colors packed in a long and
+     * the stroke width, the only inputs of the drawables, so every activity shares them
+     */
+    private static final int MAX_INDICATOR_DRAWABLES = 8;
+    private static final long[] sIndicatorColors = new long[MAX_INDICATOR_DRAWABLES];
+    private static final int[] sIndicatorStrokes = new int[MAX_INDICATOR_DRAWABLES];
+    private static final Drawable.ConstantState[] sIndicatorDrawables =
+            new Drawable.ConstantState[MAX_INDICATOR_DRAWABLES];
+    private static int sIndicatorCount;
+    private static int sNextIndicator;
+    private static final SparseArray<Typeface> sTypefaces = new SparseArray<>();
+    private static final SparseArray<ArrayList<TypefaceCallback>> sPendingTypefaces = new SparseArray<>();
+
+    /**
+     * Loads fonts off the main thread; its thread goes away when idle
+     */
+    private static final Executor sFontExecutor;
+
+    static {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 10, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>());
+        executor.allowCoreThreadTimeOut(true);
+        sFontExecutor = executor;
+    }
+
+    interface TypefaceCallback {
+        /**
+         * Called on the main thread once the typeface is available
+         *
+         * @param typeface - the typeface, or null if it could not be loaded
+         */
+        void onTypefaceLoaded(Typeface typeface);
+    }
+
+    private static int sConfigurationKey;
+    private static boolean sCallbacksRegistered;
+
+    private PinPadResources() {
+    }
+
+    /**
+     * Gets a shared color state list for a single color
+     */
+    static ColorStateList getColorStateList(@ColorInt int color) {
+        ColorStateList colorStateList = sColorStateLists.get(color);
+        if (colorStateList == null) {
+            colorStateList = ColorStateList.valueOf(color);
+            sColorStateLists.put(color, colorStateList);
+        }
+        return colorStateList;
+    }
+
+    /**
+     * Gets a drawable resource, decoding it only the first time it is requested
+     * for the current configuration
+     */
+    static Drawable getDrawable(Context context, @DrawableRes int resId) {
+        Resources resources = context.getResources();
+        ensureConfiguration(context);
+        Drawable.ConstantState state = sDrawables.get(resId);
+        if (state != null) {
+            return state.newDrawable(resources);
+        }
+
+        Drawable drawable = PinPadCompat.getDrawable(resources, resId, context.getTheme());
+        if (drawable != null && isShareable(drawable.getConstantState())) {
+            sDrawables.put(resId, drawable.getConstantState());
+        }
+        return drawable;
+    }
+
+    /**
+     * Gets the checked/unchecked background for an indicator
+     */
+    static Drawable getIndicatorDrawable(Context context, @ColorInt int filledColor,
+                                         @ColorInt int emptyColor, int strokeWidth) {
+        Resources resources = context.getResources();
+        ensureConfiguration(context);
+        long colors = ((long) filledColor << 32) | (emptyColor & 0xffffffffL);
+        for (int i = 0; i < sIndicatorCount; i++) {
+            if (sIndicatorColors[i] == colors && sIndicatorStrokes[i] == strokeWidth) {
+                return sIndicatorDrawables[i].newDrawable(resources);
+            }
+        }
+
+        StateListDrawable drawable = new StateListDrawable();
+        drawable.addState(new int[]{android.R.attr.state_checked}, createFilledDrawable(filledColor));
+        drawable.addState(StateSet.WILD_CARD, createEmptyDrawable(emptyColor, strokeWidth));
+        if (drawable.getConstantState() != null) {
+            // replace the oldest entry once the table is full
+            int slot = sNextIndicator;
+            sIndicatorColors[slot] = colors;
+            sIndicatorStrokes[slot] = strokeWidth;
+            sIndicatorDrawables[slot] = drawable.getConstantState();
+            sNextIndicator = (slot + 1) % MAX_INDICATOR_DRAWABLES;
+            if (sIndicatorCount < MAX_INDICATOR_DRAWABLES) {
+                sIndicatorCount++;
+            }
+        }
+        return drawable;
+    }
+
+    private static void clearIndicatorDrawables() {
+        for (int i = 0; i < MAX_INDICATOR_DRAWABLES; i++) {
+            sIndicatorDrawables[i] = null;
+        }
+        sIndicatorCount = 0;
+        sNextIndicator = 0;
+    }
+
+    /**
+     * Loads a font resource without blocking the main thread. Fonts are loaded once per process;
+     * requests for a font that is still loading wait for the same load.
+     */
+    static void loadTypeface(Context context, @FontRes final int resId, TypefaceCallback callback) {
+        Typeface typeface = sTypefaces.get(resId);
+        if (typeface != null) {
+            callback.onTypefaceLoaded(typeface);
+            return;
+        }
+        ArrayList<TypefaceCallback> waiting = sPendingTypefaces.get(resId);
+        if (waiting != null) {
+            waiting.add(callback);
+            return;
+        }
+        waiting = new ArrayList<>();
+        waiting.add(callback);
+        sPendingTypefaces.put(resId, waiting);
+
+        Context application = context.getApplicationContext();
+        final Context fontContext = application != null ? application : context;
+        final Handler mainHandler = new Handler(Looper.getMainLooper());
+        sFontExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    PinPadCompat.loadFont(fontContext, resId, mainHandler, new TypefaceCallback() {
+                        @Override
+                        public void onTypefaceLoaded(Typeface typeface) {
+                            if (typeface != null) {
+                                sTypefaces.put(resId, typeface);
+                            }
+                            deliverTypeface(resId, typeface);
+                        }
+                    });
+                } catch (Resources.NotFoundException e) {
+                    mainHandler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            deliverTypeface(resId, null);
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    private static void deliverTypeface(int resId, Typeface typeface) {
+        ArrayList<TypefaceCallback> waiting = sPendingTypefaces.get(resId);
+        sPendingTypefaces.remove(resId);
+        if (waiting != null) {
+            for (int i = 0; i < waiting.size(); i++) {
+                waiting.get(i).onTypefaceLoaded(typeface);
+            }
+        }
+    }
+
+    /**
+     * Drops every cached entry
+     */
+    static void clear() {
+        sColorStateLists.clear();
+        sDrawables.clear();
+        clearIndicatorDrawables();
+        sTypefaces.clear();
+    }
+
+    private static Drawable createEmptyDrawable(@ColorInt int color, int strokeWidth) {
+        GradientDrawable drawable = new GradientDrawable();
+        drawable.setShape(GradientDrawable.OVAL);
+        drawable.setStroke(strokeWidth, color);
+        drawable.setColor(Color.TRANSPARENT);
+        return drawable;
+    }
+
+    private static Drawable createFilledDrawable(@ColorInt int color) {
+        GradientDrawable drawable = new GradientDrawable();
+        drawable.setShape(GradientDrawable.OVAL);
+        drawable.setColor(color);
+        return drawable;
+    }
+
+    private static boolean isShareable(Drawable.ConstantState state) {
+        if (state == null) {
+            return false;
+        }
+        // themed drawables resolve attributes against the theme they were loaded with
+        return Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP || !state.canApplyTheme();
+    }
+
+    /**
+     * Empties the cache if the configuration the entries were built for has changed
+     */
+    private static void ensureConfiguration(Context context) {
+        if (!sCallbacksRegistered) {
+            sCallbacksRegistered = true;
+            Context application = context.getApplicationContext();
+            (application != null ? application : context).registerComponentCallbacks(sCallbacks);
+        }
+        int key = configurationKey(context.getResources());
+        if (key != sConfigurationKey) {
+            sDrawables.clear();
+            clearIndicatorDrawables();
+            sConfigurationKey = key;
+        }
+    }
+
+    private static int configurationKey(Resources resources) {
+        Configuration configuration = resources.getConfiguration();
+        return resources.getDisplayMetrics().densityDpi * 31
+                + (configuration.uiMode & Configuration.UI_MODE_NIGHT_MASK);
+    }
+
+    private static final ComponentCallbacks2 sCallbacks = new ComponentCallbacks2() {
+        @Override
+        public void onTrimMemory(int level) {
+            if (level >= TRIM_MEMORY_RUNNING_LOW) {
+                clear();
+            }
+        }
+
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {
+            // entries are checked against the configuration when they are next requested
+        }
+
+        @Override
+        public void onLowMemory() {
+            clear();
+        }
+    };
+}
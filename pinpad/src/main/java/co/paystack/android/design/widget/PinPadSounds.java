@@ -0,0 +1,149 @@
+package co.paystack.android.design.widget;
+
+import android.content.Context;
+import android.media.AudioAttributes;
+import android.media.AudioManager;
+import android.media.SoundPool;
+import android.os.Build;
+import android.util.SparseBooleanArray;
+import android.util.SparseIntArray;
+
+import androidx.annotation.RawRes;
+
+/**
+ * PinPadSounds
+ * <p>
+ * Key tap, error and success sounds for a {@link PinPadView}. The sounds are decoded into a
+ * {@link SoundPool} shared by every attached pinpad, so playing one from the input path is a
+ * single native call without allocation or I/O. The pool is created when the first pinpad with
+ * sounds attaches and released when the last one detaches.
+ * <p>
+ * Only used on the UI thread.
+ */
+class PinPadSounds {
+    static final int SOUND_KEY = 0;
+    static final int SOUND_ERROR = 1;
+    static final int SOUND_SUCCESS = 2;
+    private static final int SOUND_COUNT = 3;
+
+    /**
+     * Enough for fast typing to overlap the tail of the previous tap
+     */
+    private static final int MAX_STREAMS = 4;
+
+    private static SoundPool sPool;
+    private static int sUsers;
+    /**
+     * Sound ids in the pool, keyed by raw resource id
+     */
+    private static final SparseIntArray sSoundIds = new SparseIntArray();
+    private static final SparseBooleanArray sLoaded = new SparseBooleanArray();
+
+    private final int[] mResIds = new int[SOUND_COUNT];
+    private final int[] mSoundIds = new int[SOUND_COUNT];
+    private boolean mAcquired;
+
+    /**
+     * Sets the raw resource for a sound, 0 for none. Takes effect the next time the sounds are
+     * acquired.
+     *
+     * @param sound - one of the SOUND_ constants
+     * @param resId - raw resource of the sound
+     */
+    void setSound(int sound, @RawRes int resId) {
+        mResIds[sound] = resId;
+    }
+
+    int getSound(int sound) {
+        return mResIds[sound];
+    }
+
+    boolean hasSounds() {
+        for (int resId : mResIds) {
+            if (resId != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Loads the sounds into the shared pool, creating it if needed
+     */
+    void acquire(Context context) {
+        if (mAcquired || !hasSounds()) {
+            return;
+        }
+        mAcquired = true;
+        if (sUsers++ == 0) {
+            sPool = createPool();
+            sPool.setOnLoadCompleteListener(new SoundPool.OnLoadCompleteListener() {
+                @Override
+                public void onLoadComplete(SoundPool soundPool, int sampleId, int status) {
+                    if (soundPool == sPool && status == 0) {
+                        sLoaded.put(sampleId, true);
+                    }
+                }
+            });
+        }
+        Context application = context.getApplicationContext();
+        for (int i = 0; i < SOUND_COUNT; i++) {
+            int resId = mResIds[i];
+            if (resId == 0) {
+                mSoundIds[i] = 0;
+                continue;
+            }
+            int soundId = sSoundIds.get(resId);
+            if (soundId == 0) {
+                soundId = sPool.load(application != null ? application : context, resId, 1);
+                sSoundIds.put(resId, soundId);
+            }
+            mSoundIds[i] = soundId;
+        }
+    }
+
+    /**
+     * Gives up the shared pool, releasing it if no other pinpad uses it
+     */
+    void release() {
+        if (!mAcquired) {
+            return;
+        }
+        mAcquired = false;
+        for (int i = 0; i < SOUND_COUNT; i++) {
+            mSoundIds[i] = 0;
+        }
+        if (--sUsers == 0) {
+            sPool.release();
+            sPool = null;
+            sSoundIds.clear();
+            sLoaded.clear();
+        }
+    }
+
+    /**
+     * Plays a sound if it is set and has finished loading
+     *
+     * @param sound - one of the SOUND_ constants
+     */
+    void play(int sound) {
+        int soundId = mSoundIds[sound];
+        if (soundId != 0 && sLoaded.get(soundId)) {
+            sPool.play(soundId, 1f, 1f, 1, 0, 1f);
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private static SoundPool createPool() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            return new SoundPool.Builder()
+                    .setMaxStreams(MAX_STREAMS)
+                    .setAudioAttributes(new AudioAttributes.Builder()
+                            .setUsage(AudioAttributes.USAGE_ASSISTANCE_SONIFICATION)
+                            .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
+                            .build())
+                    .build();
+        }
+        return new SoundPool(MAX_STREAMS, AudioManager.STREAM_SYSTEM, 0);
+    }
+}
@@ -0,0 +1,57 @@
+package co.paystack.android.design.widget;
+
+import android.view.View;
+
+import androidx.annotation.RestrictTo;
+
+/**
+ * PinPadTestHooks
+ * <p>
+ * The parts of {@link PinPadView} the pinpad-testing driver needs, so the driver can live in its
+ * own package. Keys are handed out as plain views: the driver presses them with touch events,
+ * the way a finger does. Not part of the public API.
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+public final class PinPadTestHooks {
+
+    private PinPadTestHooks() {
+    }
+
+    /**
+     * @param digitOrder - digit for each key, starting with the key of 0 in the default layout,
+     *                   or null to go back to the normal placement
+     */
+    public static void setForcedDigitOrder(PinPadView pinPad, int[] digitOrder) {
+        pinPad.setForcedDigitOrder(digitOrder);
+    }
+
+    /**
+     * @return digit shown on each key, in the order taken by {@link #setForcedDigitOrder(PinPadView, int[])}
+     */
+    public static int[] getDigitOrder(PinPadView pinPad) {
+        return pinPad.getDigitOrder();
+    }
+
+    /**
+     * @return key currently showing the digit
+     */
+    public static View getKeyForDigit(PinPadView pinPad, int digit) {
+        return pinPad.getButtonForDigit(digit);
+    }
+
+    public static View getBackKey(PinPadView pinPad) {
+        return pinPad.getBackButton();
+    }
+
+    public static View getDoneKey(PinPadView pinPad) {
+        return pinPad.getDoneButton();
+    }
+
+    public static int getEnteredLength(PinPadView pinPad) {
+        return pinPad.getEnteredLength();
+    }
+
+    public static String getEnteredPin(PinPadView pinPad) {
+        return pinPad.getEnteredPin();
+    }
+}
@@ -0,0 +1,53 @@
+package co.paystack.android.design.widget;
+
+import android.os.Build;
+import android.os.Trace;
+
+/**
+ * Named system trace sections for the pinpad. Sections are only emitted when tracing has been
+ * turned on via {@link PinPadView#setTracingEnabled(boolean)}, otherwise each call is a
+ * single static field read. Whether a section was begun travels from begin to end, so toggling
+ * tracing while a section is open cannot unbalance the trace stack.
+ */
+final class PinPadTrace {
+    static final String INIT = "PinPadView#init";
+    static final String RESOLVE_ATTRIBUTES = "PinPadView#resolveAttributes";
+    static final String INFLATE = "PinPadView#inflate";
+    static final String SYNC_INDICATORS = "PinPadView#syncIndicators";
+    static final String ASSIGN_BUTTON_NUMBERS = "PinPadView#assignButtonNumbers";
+    static final String UPDATE_PIN = "PinPadView#updatePin";
+    static final String DIGIT_CLICK = "PinPadView#onDigitClick";
+    static final String BACK_CLICK = "PinPadView#onBackClick";
+    static final String DONE_CLICK = "PinPadView#onDoneClick";
+
+    static volatile boolean sEnabled = false;
+
+    private PinPadTrace() {
+    }
+
+    /**
+     * Begins a section if tracing is on. Pass the result to {@link #endSection(boolean)}, so the
+     * section is ended even if tracing is turned off before then.
+     *
+     * @param sectionName - one of the section name constants
+     * @return true if a section was begun
+     */
+    static boolean beginSection(String sectionName) {
+        if (sEnabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            Trace.beginSection(sectionName);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Ends the section begun by the matching {@link #beginSection(String)} call
+     *
+     * @param began - result of that call
+     */
+    static void endSection(boolean began) {
+        if (began && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            Trace.endSection();
+        }
+    }
+}
@@ -1,25 +1,40 @@
 package co.paystack.android.design.widget;
 
 import android.annotation.TargetApi;
+import android.app.ActivityManager;
 import android.content.Context;
 import android.content.res.TypedArray;
+import android.graphics.Canvas;
 import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.Typeface;
 import android.os.Build;
+import android.os.SystemClock;
 import android.os.Vibrator;
+import android.text.SpannableStringBuilder;
+import android.text.Spanned;
 import android.text.TextUtils;
+import android.text.style.AbsoluteSizeSpan;
 import android.util.AttributeSet;
+import android.util.DisplayMetrics;
 import android.util.TypedValue;
 import android.view.Gravity;
+import android.view.InflateException;
+import android.view.KeyEvent;
+import android.view.MotionEvent;
 import android.view.View;
+import android.view.ViewGroup;
 import android.widget.FrameLayout;
 import android.widget.LinearLayout;
 import android.widget.TextView;
 
 import androidx.annotation.ColorInt;
-import androidx.core.content.res.ResourcesCompat;
+import androidx.annotation.RawRes;
 
+import java.text.DecimalFormatSymbols;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Random;
 
@@ -58,6 +73,62 @@ public class PinPadView extends FrameLayout {
     private static final boolean DEFAULT_PLACE_DIGITS_RANDOMLY = true;
     private static final boolean DEFAULT_VIBRATE_ON_INCOMPLETE_SUBMIT = true;
     private static final boolean DEFAULT_AUTO_SUBMIT = true;
+    private static final boolean DEFAULT_RELEASE_ON_DETACH = false;
+    private static final boolean DEFAULT_AUTO_SIZE_TEXT = false;
+    /**
+     * Lines the prompt is fitted to when auto sizing and no maxLines is set on it
+     */
+    private static final int DEFAULT_AUTO_SIZE_PROMPT_LINES = 2;
+    private static final float AUTO_SIZE_MIN_TEXT_SIZE = 8f;
+    private static final float AUTO_SIZE_ALPHABET_GAP = 8f;
+    private static final long VIBRATION_DURATION = 300;
+    private static final long VIBRATION_DURATION_LITE = 40;
+    /**
+     * Alpha of the flat pressed-state overlay used by the lite render profile
+     */
+    private static final int LITE_PRESSED_ALPHA = 0x33;
+    /**
+     * Values of the key_layout attribute
+     */
+    private static final int KEY_LAYOUT_PHONE = 0;
+    private static final int KEY_LAYOUT_CALCULATOR = 1;
+    private static final int KEY_LAYOUT_POS = 2;
+    /**
+     * Letters shown next to each digit key, by the digit the key shows by default
+     */
+    private static final String[] KEY_LETTERS = {
+            null, null, "abc", "def", "ghi", "jkl", "mno", "pqrs", "tuv", "wxyz"};
+
+    /**
+     * Ids of the digit keys, by the digit the key shows by default
+     */
+    private static final int[] DIGIT_KEY_IDS = {
+            R.id.pstck_pinpad__btn_0, R.id.pstck_pinpad__btn_1, R.id.pstck_pinpad__btn_2,
+            R.id.pstck_pinpad__btn_3, R.id.pstck_pinpad__btn_4, R.id.pstck_pinpad__btn_5,
+            R.id.pstck_pinpad__btn_6, R.id.pstck_pinpad__btn_7, R.id.pstck_pinpad__btn_8,
+            R.id.pstck_pinpad__btn_9};
+
+    /**
+     * Digits are collected into a pin of {@link #getPinLength()} digits
+     */
+    public static final int ENTRY_MODE_PIN = 0;
+    /**
+     * Digits are collected into an amount in minor units, shown in place of the indicators
+     */
+    public static final int ENTRY_MODE_AMOUNT = 1;
+
+    /**
+     * Picks {@link #RENDER_PROFILE_LITE} on low-RAM devices and {@link #RENDER_PROFILE_FULL} otherwise
+     */
+    public static final int RENDER_PROFILE_AUTO = 0;
+    /**
+     * Ripples, state list indicators and regular haptics
+     */
+    public static final int RENDER_PROFILE_FULL = 1;
+    /**
+     * Flat pressed colors, directly drawn indicators and short haptics
+     */
+    public static final int RENDER_PROFILE_LITE = 2;
 
     @ColorInt
     private int mIndicatorFilledColor = Color.WHITE;
@@ -69,35 +140,119 @@ public class PinPadView extends FrameLayout {
     private int mButtonTextColor = Color.WHITE;
     private int mPromptTextColor = Color.WHITE;
     private String mPromptText;
+    private int mPromptLines;
+    private final PromptTextCache mPromptTextCache = new PromptTextCache();
+    private boolean mPromptRecurring;
+    /**
+     * Width and text length the reserved-lines prompt was last fitted at, and the size found;
+     * texts of the same length, e.g. countdown ticks, reuse the size without measuring
+     */
+    private int mPromptFitWidth = -1;
+    private int mPromptFitLength;
+    private float mPromptFitSize;
+    /**
+     * Reused for the fitted reserved-lines prompt, with its size span
+     */
+    private final SpannableStringBuilder mPromptSpannable = new SpannableStringBuilder();
+    private AbsoluteSizeSpan mPromptSizeSpan;
     private int mPinLength = DEFAULT_PIN_LENGTH;
     private float mTextSizeNumeric;
     private float mTextSizeAlpha;
     private float mTextSizePrompt;
     private int mDrawableSize;
+    private int mButtonFont;
+    private int mPromptFont;
 
     private boolean mPlaceDigitsRandomly = DEFAULT_PLACE_DIGITS_RANDOMLY;
     private boolean mAutoSubmit = DEFAULT_AUTO_SUBMIT;
     private boolean mVibrateOnIncompleteSubmit = DEFAULT_VIBRATE_ON_INCOMPLETE_SUBMIT;
+    private int mRenderProfile = RENDER_PROFILE_FULL;
+    private boolean mLocked;
+    private boolean mReleaseOnDetach = DEFAULT_RELEASE_ON_DETACH;
+    private boolean mReleased;
+    private boolean mAutoSizeText = DEFAULT_AUTO_SIZE_TEXT;
+    private int mEntryMode = ENTRY_MODE_PIN;
+    private final AmountAccumulator mAmount = new AmountAccumulator();
+    private float mTextSizeAmount;
+    private TextSizeFitter mTextSizeFitter;
+    private final PinPadSounds mSounds = new PinPadSounds();
+    private float mFittedNumericSize;
+    private float mFittedAlphaSize;
+    private float mFittedPromptSize;
+    private final PinPadController mController = new PinPadController(this);
+    private boolean mLiteRendering;
+    /**
+     * Pressed keys in lite mode, drawn by the pinpad instead of per-key foregrounds
+     */
+    private final Paint mLitePressedPaint = new Paint();
+    private final Rect mPressedBounds = new Rect();
+    private final PinPadButton.OnPressedChangeListener mKeyPressedListener = new PinPadButton.OnPressedChangeListener() {
+        @Override
+        public void onPressedChanged(PinPadButton button) {
+            invalidate();
+        }
+    };
 
-    private PinPadButton mButton0;
-    private PinPadButton mButton1;
-    private PinPadButton mButton2;
-    private PinPadButton mButton3;
-    private PinPadButton mButton4;
-    private PinPadButton mButton5;
-    private PinPadButton mButton6;
-    private PinPadButton mButton7;
-    private PinPadButton mButton8;
-    private PinPadButton mButton9;
+    private PinPadKeyLayout mKeyLayout = PinPadKeyLayout.PHONE;
+    /**
+     * Every key of the layout
+     */
+    private List<PinPadButton> mKeys;
+    /**
+     * Digit keys, ordered by the digit they show when digits are not placed randomly
+     */
+    private List<PinPadButton> mButtons;
+    /**
+     * Digit shown by the key in each slot, -1 for other keys
+     */
+    private int[] mSlotDigits;
+    /**
+     * Key showing each digit
+     */
+    private final PinPadButton[] mDigitButtons = new PinPadButton[10];
+    /**
+     * Single column digit key whose cell auto sizing measures
+     */
+    private PinPadButton mSizingButton;
     private PinPadButton mButtonBack;
     private PinPadButton mButtonDone;
     private TextView mTextViewPrompt;
     private LinearLayout mLayoutIndicator;
-
-    private List<PinPadButton> mButtons;
+    private TextView mTextViewAmount;
+    private LinearLayout mLayoutKeys;
+    private Typeface mButtonTypeface;
 
     private OnPinChangedListener mPinChangeListener;
     private OnSubmitListener mSubmitListener;
+    private OnAmountChangedListener mAmountChangedListener;
+    private OnAmountSubmitListener mAmountSubmitListener;
+    private OnBiometricKeyListener mBiometricKeyListener;
+    private TypingCadenceCollector mCadenceCollector;
+
+    private PinEntryStage[] mStages;
+    private char[][] mStageBuffers;
+    private int mCurrentStage;
+    private OnStagesCompletedListener mStagesListener;
+    /**
+     * Prompt text and pin length to restore once the stages are over
+     */
+    private String mPreStagePromptText;
+    private int mPreStagePinLength;
+    private final PinEventDispatcher mPinEvents = new PinEventDispatcher(this);
+    private final PinChangeQueue mPendingChanges = new PinChangeQueue();
+    private boolean mDeliveringPinChanges;
+
+    private PinVerifier mPinVerifier;
+    private PinVerifier.Callback mPinVerifierCallback;
+    private char[] mVerifyBuffer;
+    private boolean mVerifying;
+    /**
+     * Bumped whenever a running verification should be ignored, e.g. on detach
+     */
+    private int mVerifyGeneration;
+
+    private final PinPadDiagnostics mDiagnostics = new PinPadDiagnostics();
+    private final KeyInputDispatcher mInputDispatcher = new KeyInputDispatcher();
 
     /**
      * StringBuilder for the pin text
@@ -136,8 +291,87 @@ public class PinPadView extends FrameLayout {
         void onIncompleteSubmit(String pin);
     }
 
+    public interface OnAmountChangedListener {
+        /**
+         * Listener method invoked when the amount changed in amount mode
+         *
+         * @param oldAmount - old amount in minor units
+         * @param newAmount - new amount in minor units
+         */
+        void onAmountChanged(long oldAmount, long newAmount);
+    }
+
+    public interface OnAmountSubmitListener {
+        /**
+         * This will be called when "enter/done" key is pressed
+         * in amount mode and the amount is not zero
+         *
+         * @param amount - amount in minor units
+         */
+        void onCompleted(long amount);
+
+        /**
+         * This will be called when "enter/done" key is pressed
+         * in amount mode and the amount is zero
+         *
+         * @param amount - amount in minor units
+         */
+        void onIncompleteSubmit(long amount);
+    }
+
+    public interface OnStagesCompletedListener {
+        /**
+         * Called when a stage has been entered (and confirmed, if it is a confirmation stage)
+         * and the keypad has moved on to the next stage
+         *
+         * @param stage - index of the completed stage
+         */
+        void onStageCompleted(int stage);
+
+        /**
+         * Called when a confirmation stage did not match the stage it confirms. The keypad
+         * goes back to the confirmed stage.
+         *
+         * @param stage - index of the confirmation stage that did not match
+         */
+        void onStageMismatch(int stage);
+
+        /**
+         * Called once every stage has been entered and confirmed
+         *
+         * @param pins - pin entered in each stage
+         */
+        void onStagesCompleted(String[] pins);
+    }
+
+    public interface OnPinEventListener {
+        int TYPE_DIGIT_ADDED = 0;
+        int TYPE_DIGIT_REMOVED = 1;
+        int TYPE_CLEARED = 2;
+        int TYPE_SUBMITTED = 3;
+        int TYPE_INCOMPLETE_SUBMIT = 4;
+
+        /**
+         * Listener method invoked for every pin edit or submit. Unlike {@link OnPinChangedListener}
+         * it never builds the pin, so it is cheap enough for analytics and UI consumers.
+         *
+         * @param type           - one of the TYPE_ constants
+         * @param length         - pin length after the event
+         * @param timestampNanos - {@link System#nanoTime()} at the time of the event
+         */
+        void onPinEvent(int type, int length, long timestampNanos);
+    }
+
+    public interface OnBiometricKeyListener {
+        /**
+         * Called when the {@link PinPadKeyLayout#KEY_BIOMETRIC} key is clicked, e.g. to show
+         * a fingerprint prompt
+         */
+        void onBiometricKeyClicked();
+    }
+
     public PinPadView(Context context) {
-        super(context);
+        this(context, null);
     }
 
     public PinPadView(Context context, AttributeSet attrs) {
@@ -162,8 +396,48 @@ public class PinPadView extends FrameLayout {
     }
 
     private void init(Context context, AttributeSet attrs) {
-        if (context != null && attrs != null) {
-            mAttrs = attrs;
+        if (context != null) {
+            boolean traced = PinPadTrace.beginSection(PinPadTrace.INIT);
+            try {
+                mAttrs = attrs;
+                readAttributes(context, attrs);
+                inflateViews(context);
+
+                buildKeys(context);
+
+                mPinBuilder = new StringBuilder();
+
+                syncIndicators(context, attrs);
+                assignButtonNumbers();
+
+                //set properties;
+                setNumericTextSize(mTextSizeNumeric, false);
+                setAlphabetTextSize(mTextSizeAlpha, false);
+                setImageButtonSize(mDrawableSize, false);
+                setButtonTextColor(mButtonTextColor, false);
+                setPromptTextColor(mPromptTextColor, false);
+                setPromptTextSize(mTextSizePrompt, false);
+                setPromptText(mPromptText);
+                setPromptPadding(mPromptPadding, false);
+                setPromptPaddingTop(mPromptPaddingTop, false);
+                setPromptPaddingBottom(mPromptPaddingBottom, false);
+                applyPromptLines();
+                setPinLength(mPinLength);
+                setRenderProfile(mRenderProfile);
+                mTextViewAmount.setTextSize(TypedValue.COMPLEX_UNIT_PX, mTextSizeAmount);
+                setEntryMode(mEntryMode);
+                loadFonts(context);
+                updateIndicators(mPinBuilder.length());
+            } finally {
+                PinPadTrace.endSection(traced);
+            }
+        }
+    }
+
+    private void readAttributes(Context context, AttributeSet attrs) {
+        boolean traced = PinPadTrace.beginSection(PinPadTrace.RESOLVE_ATTRIBUTES);
+        try {
+            // without an attribute set, e.g. when created in code, every value is its default
             TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.PinPadView);
 
             mPinLength = a.getInteger(R.styleable.PinPadView_pin_length, DEFAULT_PIN_LENGTH);
@@ -191,74 +465,283 @@ public class PinPadView extends FrameLayout {
                     DEFAULT_AUTO_SUBMIT);
             mVibrateOnIncompleteSubmit = a.getBoolean(R.styleable.PinPadView_vibrate_on_incomplete_submit,
                     DEFAULT_VIBRATE_ON_INCOMPLETE_SUBMIT);
+            mRenderProfile = a.getInt(R.styleable.PinPadView_render_profile, RENDER_PROFILE_FULL);
+            mReleaseOnDetach = a.getBoolean(R.styleable.PinPadView_release_on_detach,
+                    DEFAULT_RELEASE_ON_DETACH);
+            mAutoSizeText = a.getBoolean(R.styleable.PinPadView_auto_size_text,
+                    DEFAULT_AUTO_SIZE_TEXT);
+            mEntryMode = a.getInt(R.styleable.PinPadView_entry_mode, ENTRY_MODE_PIN);
+            mTextSizeAmount = a.getDimension(R.styleable.PinPadView_amount_textsize,
+                    getResources().getDimension(R.dimen.pstck_pinpad__default_amount_textsize));
+            DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance();
+            mAmount.setSeparators(symbols.getDecimalSeparator(), symbols.getGroupingSeparator());
+            mAmount.setDecimals(a.getInt(R.styleable.PinPadView_amount_decimals, mAmount.getDecimals()));
+            if (a.hasValue(R.styleable.PinPadView_amount_max)) {
+                int maxAmount = a.getInt(R.styleable.PinPadView_amount_max, Integer.MAX_VALUE);
+                if (maxAmount <= 0) {
+                    a.recycle();
+                    throw new InflateException("amount_max must be at least 1, got " + maxAmount);
+                }
+                mAmount.setMaxValue(maxAmount);
+            }
 
             mIndicatorFilledColor = a.getColor(R.styleable.PinPadView_pin_indicator_filled_color,
-                    ResourcesCompat.getColor(getResources(), R.color.pstck_pinpad_default_pin_indicator_filled_color, null));
+                    PinPadCompat.getColor(getResources(), R.color.pstck_pinpad_default_pin_indicator_filled_color));
 
             mIndicatorEmptyColor = a.getColor(R.styleable.PinPadView_pin_indicator_empty_color,
-                    ResourcesCompat.getColor(getResources(), R.color.pstck_pinpad_default_pin_indicator_empty_color, null));
+                    PinPadCompat.getColor(getResources(), R.color.pstck_pinpad_default_pin_indicator_empty_color));
 
             mButtonTextColor = a.getColor(R.styleable.PinPadView_button_textcolor,
-                    ResourcesCompat.getColor(getResources(), R.color.pstck_pinpad_default_button_textcolor, null));
+                    PinPadCompat.getColor(getResources(), R.color.pstck_pinpad_default_button_textcolor));
             mPromptTextColor = a.getColor(R.styleable.PinPadView_prompt_textcolor,
-                    ResourcesCompat.getColor(getResources(), R.color.pstck_pinpad_default_prompt_textcolor, null));
-
+                    PinPadCompat.getColor(getResources(), R.color.pstck_pinpad_default_prompt_textcolor));
+
+
+            mButtonFont = a.getResourceId(R.styleable.PinPadView_button_font, 0);
+            mSounds.setSound(PinPadSounds.SOUND_KEY, a.getResourceId(R.styleable.PinPadView_key_sound, 0));
+            mSounds.setSound(PinPadSounds.SOUND_ERROR, a.getResourceId(R.styleable.PinPadView_error_sound, 0));
+            mSounds.setSound(PinPadSounds.SOUND_SUCCESS, a.getResourceId(R.styleable.PinPadView_success_sound, 0));
+            mPromptFont = a.getResourceId(R.styleable.PinPadView_prompt_font, 0);
+            mPromptLines = Math.max(0, a.getInt(R.styleable.PinPadView_prompt_lines, 0));
+            switch (a.getInt(R.styleable.PinPadView_key_layout, KEY_LAYOUT_PHONE)) {
+                case KEY_LAYOUT_CALCULATOR:
+                    mKeyLayout = PinPadKeyLayout.CALCULATOR;
+                    break;
+                case KEY_LAYOUT_POS:
+                    mKeyLayout = PinPadKeyLayout.POS;
+                    break;
+                default:
+                    mKeyLayout = PinPadKeyLayout.PHONE;
+                    break;
+            }
 
             if (a.hasValue(R.styleable.PinPadView_prompt_text)) {
                 mPromptText = a.getString(R.styleable.PinPadView_prompt_text);
             }
 
             a.recycle();
+        } finally {
+            PinPadTrace.endSection(traced);
+        }
+    }
 
+    private void inflateViews(Context context) {
+        boolean traced = PinPadTrace.beginSection(PinPadTrace.INFLATE);
+        try {
             // inflate compound view;
             View parent = inflate(context, R.layout.layout_pinpad, this);
 
-            mButton0 = (PinPadButton) parent.findViewById(R.id.pstck_pinpad__btn_0);
-            mButton1 = (PinPadButton) parent.findViewById(R.id.pstck_pinpad__btn_1);
-            mButton2 = (PinPadButton) parent.findViewById(R.id.pstck_pinpad__btn_2);
-            mButton3 = (PinPadButton) parent.findViewById(R.id.pstck_pinpad__btn_3);
-            mButton4 = (PinPadButton) parent.findViewById(R.id.pstck_pinpad__btn_4);
-            mButton5 = (PinPadButton) parent.findViewById(R.id.pstck_pinpad__btn_5);
-            mButton6 = (PinPadButton) parent.findViewById(R.id.pstck_pinpad__btn_6);
-            mButton7 = (PinPadButton) parent.findViewById(R.id.pstck_pinpad__btn_7);
-            mButton8 = (PinPadButton) parent.findViewById(R.id.pstck_pinpad__btn_8);
-            mButton9 = (PinPadButton) parent.findViewById(R.id.pstck_pinpad__btn_9);
-            mButtonBack = (PinPadButton) parent.findViewById(R.id.pstck_pinpad__btn_back);
-            mButtonDone = (PinPadButton) parent.findViewById(R.id.pstck_pinpad__btn_done);
+            mLayoutKeys = (LinearLayout) parent.findViewById(R.id.pstck_pinpad__keys);
             mTextViewPrompt = (TextView) parent.findViewById(R.id.pstck_pinpad__prompt);
             mLayoutIndicator = (LinearLayout) parent.findViewById(R.id.pstck_pinpad__indicator_layout);
+            mTextViewAmount = (TextView) parent.findViewById(R.id.pstck_pinpad__amount);
+        } finally {
+            PinPadTrace.endSection(traced);
+        }
+    }
+
+    /**
+     * Builds the key rows described by mKeyLayout, replacing any keys built before. Keys are
+     * created in code, so the layout costs no XML inflation beyond that of each key.
+     */
+    private void buildKeys(Context context) {
+        PinPadKeyLayout layout = mKeyLayout;
+        mLayoutKeys.removeAllViews();
+        mKeys = new ArrayList<>(layout.getKeyCount());
+        PinPadButton[] digitKeys = new PinPadButton[10];
+        mSlotDigits = new int[layout.getKeyCount()];
+        mSizingButton = null;
+
+        LinearLayout row = null;
+        for (int slot = 0; slot < layout.getKeyCount(); slot++) {
+            if (row == null || layout.getRow(slot) != layout.getRow(slot - 1)) {
+                row = new LinearLayout(context);
+                row.setOrientation(LinearLayout.HORIZONTAL);
+                row.setWeightSum(layout.getColumnCount());
+                mLayoutKeys.addView(row, new LinearLayout.LayoutParams(
+                        LayoutParams.MATCH_PARENT, 0, 1f));
+            }
+            LinearLayout.LayoutParams params = new LinearLayout.LayoutParams(
+                    0, LayoutParams.MATCH_PARENT, layout.getSpan(slot));
+            mSlotDigits[slot] = -1;
+
+            int type = layout.getKeyType(slot);
+            if (type == PinPadKeyLayout.KEY_EMPTY) {
+                row.addView(new View(context), params);
+                continue;
+            }
+            PinPadButton button = new PinPadButton(context);
+            button.setKeySlot(slot);
+            switch (type) {
+                case PinPadKeyLayout.KEY_DIGIT:
+                    int digit = layout.getDigit(slot);
+                    digitKeys[digit] = button;
+                    button.setId(DIGIT_KEY_IDS[digit]);
+                    button.setAlphabetText(KEY_LETTERS[digit]);
+                    if (mSizingButton == null && layout.getSpan(slot) == 1) {
+                        mSizingButton = button;
+                    }
+                    break;
+                case PinPadKeyLayout.KEY_BACK:
+                    button.setGlyph(KeyGlyphDrawable.GLYPH_BACKSPACE);
+                    button.setId(R.id.pstck_pinpad__btn_back);
+                    mButtonBack = button;
+                    break;
+                case PinPadKeyLayout.KEY_DONE:
+                    button.setNumericText(getResources().getString(R.string.pstck_pinpad__key_done));
+                    button.setId(R.id.pstck_pinpad__btn_done);
+                    mButtonDone = button;
+                    break;
+                case PinPadKeyLayout.KEY_DOUBLE_ZERO:
+                    button.setNumericText(getResources().getString(R.string.pstck_pinpad__key_double_zero));
+                    break;
+                case PinPadKeyLayout.KEY_CLEAR:
+                    button.setNumericText(getResources().getString(R.string.pstck_pinpad__key_clear));
+                    break;
+                case PinPadKeyLayout.KEY_BIOMETRIC:
+                    button.setGlyph(KeyGlyphDrawable.GLYPH_FINGERPRINT);
+                    break;
+            }
+            button.setDiagnostics(mDiagnostics);
+            button.setInputDispatcher(mInputDispatcher);
+            button.setButtonClickListener(mKeyClickListener);
+            button.setPressedChangeListener(mKeyPressedListener);
+            if (mLiteRendering) {
+                button.setLiteRendering(true);
+            }
+            if (mButtonTypeface != null) {
+                button.setTypeface(mButtonTypeface);
+            }
+            if (mReleased) {
+                button.releaseDrawables();
+            }
+            row.addView(button, params);
+            mKeys.add(button);
+        }
+        mButtons = Arrays.asList(digitKeys);
+        if (mSizingButton == null) {
+            mSizingButton = digitKeys[1];
+        }
+    }
 
-            mButtons = Arrays.asList(
-                    mButton0, mButton1, mButton2, mButton3, mButton4,
-                    mButton5, mButton6, mButton7, mButton8, mButton9);
+    /**
+     * Replaces the keys with the ones described by the layout, e.g. {@link PinPadKeyLayout#POS}
+     * for a terminal style pad with 00 and clear keys. The keys move, so a pin or amount being
+     * entered is cleared, and listeners are told of the clear.
+     *
+     * @param keyLayout - {@link PinPadKeyLayout} layout
+     */
+    public void setKeyLayout(PinPadKeyLayout keyLayout) {
+        if (keyLayout == null) {
+            throw new IllegalArgumentException("keyLayout is required");
+        }
+        if (keyLayout == mKeyLayout || mKeys == null) {
+            mKeyLayout = keyLayout;
+            return;
+        }
+        mKeyLayout = keyLayout;
+        mInputDispatcher.reset();
+        clear();
+        buildKeys(getContext());
+        assignButtonNumbers();
 
-            mPinBuilder = new StringBuilder();
+        // the new keys take the current style; auto sizing fits them on the next measure
+        mFittedNumericSize = 0;
+        mFittedAlphaSize = 0;
+        setNumericTextSize(mTextSizeNumeric, false);
+        setAlphabetTextSize(mTextSizeAlpha, false);
+        setImageButtonSize(mDrawableSize, false);
+        setButtonTextColor(mButtonTextColor, false);
+        requestLayout(PinPadDiagnostics.SOURCE_KEY_LAYOUT);
+    }
 
-            createIndicators(context, attrs);
-            assignButtonNumbers();
+    public PinPadKeyLayout getKeyLayout() {
+        return mKeyLayout;
+    }
 
-            //set properties;
-            setNumericTextSize(mTextSizeNumeric, false);
-            setAlphabetTextSize(mTextSizeAlpha, false);
-            setImageButtonSize(mDrawableSize, false);
-            setButtonTextColor(mButtonTextColor, false);
-            setPromptTextColor(mPromptTextColor, false);
-            setPromptTextSize(mTextSizePrompt, false);
-            setPromptText(mPromptText);
-            setPromptPadding(mPromptPadding, false);
-            setPromptPaddingTop(mPromptPaddingTop, false);
-            setPromptPaddingBottom(mPromptPaddingBottom, false);
-            setPinLength(mPinLength);
-            setButtonClickListeners();
-            updateIndicators(mPinBuilder.toString());
-        }
+    /**
+     * Sets the listener for the {@link PinPadKeyLayout#KEY_BIOMETRIC} key
+     *
+     * @param listener - {@link OnBiometricKeyListener} listener
+     */
+    public void setOnBiometricKeyListener(OnBiometricKeyListener listener) {
+        mBiometricKeyListener = listener;
     }
 
-    private void assignNumber(PinPadButton p, Integer i) {
-        mButtonNumbers.put(p, i);
+    private void assignNumber(PinPadButton p, int i) {
+        mSlotDigits[p.getKeySlot()] = i;
+        mDigitButtons[i] = p;
         p.setNumericText(Integer.toString(i));
     }
 
+    /**
+     * Places the digits in the given order regardless of {@link #getPlaceDigitsRandomly()}.
+     * Meant for test drivers, which reach it through {@link PinPadTestHooks}.
+     *
+     * @param digitOrder - digit for each key, starting with the key of 0 in the default layout,
+     *                   or null to go back to the normal placement
+     */
+    void setForcedDigitOrder(int[] digitOrder) {
+        if (digitOrder != null) {
+            boolean[] seen = new boolean[10];
+            if (digitOrder.length != seen.length) {
+                throw new IllegalArgumentException("digit order must hold each digit once");
+            }
+            for (int digit : digitOrder) {
+                if (digit < 0 || digit > 9 || seen[digit]) {
+                    throw new IllegalArgumentException("digit order must hold each digit once");
+                }
+                seen[digit] = true;
+            }
+            digitOrder = digitOrder.clone();
+        }
+        mForcedDigitOrder = digitOrder;
+        assignButtonNumbers();
+    }
+
+    /**
+     * Gets the digit shown on each key, in the order of {@link #setForcedDigitOrder(int[])}
+     */
+    int[] getDigitOrder() {
+        int[] order = new int[mButtons.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = mSlotDigits[mButtons.get(i).getKeySlot()];
+        }
+        return order;
+    }
+
+    /**
+     * Gets the key currently showing the digit
+     */
+    PinPadButton getButtonForDigit(int digit) {
+        if (digit < 0 || digit > 9) {
+            throw new IllegalArgumentException("no key for digit " + digit);
+        }
+        return mDigitButtons[digit];
+    }
+
+    PinPadButton getBackButton() {
+        return mButtonBack;
+    }
+
+    PinPadButton getDoneButton() {
+        return mButtonDone;
+    }
+
+    /**
+     * Gets the number of digits entered so far, without building the pin
+     */
+    int getEnteredLength() {
+        return mPinBuilder.length();
+    }
+
+    /**
+     * Builds the pin entered so far. Meant for test drivers.
+     */
+    String getEnteredPin() {
+        return mPinBuilder.toString();
+    }
+
     public void setPlaceDigitsRandomly(boolean placeDigitsRandomly) {
         mPlaceDigitsRandomly = placeDigitsRandomly;
         assignButtonNumbers();
@@ -285,19 +768,29 @@ public class PinPadView extends FrameLayout {
     }
 
     private void assignButtonNumbers() {
-        mButtonNumbers = new HashMap<>();
-        int[] numbersArray = {0, 1, 2, 3, 4, 5, 6, 7, 8, 9};
-
-        if (mPlaceDigitsRandomly) {
-            shuffleArray(numbersArray);
-        }
+        boolean traced = PinPadTrace.beginSection(PinPadTrace.ASSIGN_BUTTON_NUMBERS);
+        try {
+            int[] numbersArray = {0, 1, 2, 3, 4, 5, 6, 7, 8, 9};
+
+            // test drivers can force an order; amounts are entered on a fixed layout
+            if (mForcedDigitOrder != null) {
+                numbersArray = mForcedDigitOrder;
+            } else if (mPlaceDigitsRandomly && mEntryMode == ENTRY_MODE_PIN) {
+                shuffleArray(numbersArray);
+            }
 
-        for (int i = 0; i < numbersArray.length; i++) {
-            assignNumber(mButtons.get(i), numbersArray[i]);
+            for (int i = 0; i < numbersArray.length; i++) {
+                assignNumber(mButtons.get(i), numbersArray[i]);
+            }
+        } finally {
+            PinPadTrace.endSection(traced);
         }
     }
 
-    private HashMap<PinPadButton, Integer> mButtonNumbers = new HashMap<>();
+    /**
+     * Digit order forced by test drivers, used instead of the random placement when set
+     */
+    private int[] mForcedDigitOrder;
 
     private void shuffleArray(int[] ar) {
         Random rnd = new Random();
@@ -319,341 +812,1534 @@ public class PinPadView extends FrameLayout {
         mPinChangeListener = listener;
     }
 
-    public void vibratePhone() {
-        Vibrator v = (Vibrator) getContext().getSystemService(Context.VIBRATOR_SERVICE);
-        v.vibrate(300);
-    }
-
     /**
-     * Sets the listener to handle clicking done
+     * Subscribes to compact pin events. Any number of listeners can be added.
      *
-     * @param listener - {@link OnSubmitListener} listener
+     * @param listener - {@link OnPinEventListener} listener
+     * @param coalesce - true to receive only the latest event of each frame
      */
-    public void setOnSubmitListener(OnSubmitListener listener) {
-        mSubmitListener = listener;
+    public void addOnPinEventListener(OnPinEventListener listener, boolean coalesce) {
+        mPinEvents.addListener(listener, coalesce);
     }
 
     /**
-     * Sets the pinpad prompt text
+     * Unsubscribes a listener added with {@link #addOnPinEventListener(OnPinEventListener, boolean)}
      *
-     * @param promptText - text to display on the prompt field
+     * @param listener - {@link OnPinEventListener} listener
      */
-    public void setPromptText(String promptText) {
-        mPromptText = promptText;
-        mTextViewPrompt.setVisibility(TextUtils.isEmpty(promptText) ? GONE : VISIBLE);
-        mTextViewPrompt.setText(mPromptText);
-        requestLayout();
+    public void removeOnPinEventListener(OnPinEventListener listener) {
+        mPinEvents.removeListener(listener);
     }
 
     /**
-     * Sets the pinpad promptPadding
+     * Turns system trace sections (visible in systrace/Perfetto) on or off for all pinpads.
+     * Set it before the pinpad is inflated to get a trace of its construction.
      *
-     * @param padding - padding for prompt in pixels
+     * @param enabled - true to emit trace sections
      */
-    public void setPromptPadding(int padding) {
-        mPromptPadding = padding;
-        setPromptPadding(padding, true);
+    public static void setTracingEnabled(boolean enabled) {
+        PinPadTrace.sEnabled = enabled;
     }
 
     /**
-     * Sets the pinpad promptPadding
+     * Gets the diagnostics counters for this pinpad. Counting is off until
+     * {@link PinPadDiagnostics#setEnabled(boolean)} is called.
      *
-     * @param paddingTop - padding for prompt top in pixels
+     * @return {@link PinPadDiagnostics} diagnostics
      */
-    public void setPromptPaddingTop(int paddingTop) {
-        mPromptPaddingTop = paddingTop;
-        setPromptPaddingTop(paddingTop, true);
-    }
-
-    public int getPromptPaddingTop() {
-        return mPromptPaddingTop;
-    }
-
-    public int getPromptPadding() {
-        return mPromptPadding;
-    }
-
-    public int getPromptPaddingBottom() {
-        return mPromptPaddingBottom;
+    public PinPadDiagnostics getDiagnostics() {
+        return mDiagnostics;
     }
 
     /**
-     * Sets the pinpad promptPadding
+     * Sets an opt-in collector for the timing profile of each PIN entry
      *
-     * @param paddingBottom - padding for prompt bottom in pixels
+     * @param collector - {@link TypingCadenceCollector} collector, null to stop collecting
      */
-    public void setPromptPaddingBottom(int paddingBottom) {
-        mPromptPaddingBottom = paddingBottom;
-        setPromptPaddingBottom(paddingBottom, true);
+    public void setTypingCadenceCollector(TypingCadenceCollector collector) {
+        mCadenceCollector = collector;
+        if (collector != null) {
+            collector.reset();
+        }
     }
 
     /**
-     * Sets the textsize for the prompt text
+     * Sets the sound played when a key is accepted. Sounds are loaded when the pinpad attaches
+     * to a window and released when it detaches.
      *
-     * @param textSize - textsize for the prompt text in pixels
+     * @param resId - raw resource of the sound, 0 for none
      */
-    public void setPromptTextSize(float textSize) {
-        setPromptTextSize(textSize, true);
+    public void setKeySound(@RawRes int resId) {
+        setSound(PinPadSounds.SOUND_KEY, resId);
     }
 
     /**
-     * Sets the textSize for the numeric text
+     * Sets the sound played when a key is rejected, an incomplete pin is submitted
+     * or a pin does not match
      *
-     * @param textSize - textisze for the numeric text in pixles
+     * @param resId - raw resource of the sound, 0 for none
      */
-    public void setNumericTextSize(float textSize) {
-        setNumericTextSize(textSize, true);
+    public void setErrorSound(@RawRes int resId) {
+        setSound(PinPadSounds.SOUND_ERROR, resId);
     }
 
-    public void setAlphabetTextSize(float textSize) {
-        setAlphabetTextSize(textSize, true);
+    /**
+     * Sets the sound played when a complete pin or an amount is submitted, a stage is completed
+     * or a pin is verified
+     *
+     * @param resId - raw resource of the sound, 0 for none
+     */
+    public void setSuccessSound(@RawRes int resId) {
+        setSound(PinPadSounds.SOUND_SUCCESS, resId);
     }
 
-    public void setButtonTextColor(@ColorInt int color) {
-        setButtonTextColor(color, true);
+    private void setSound(int sound, int resId) {
+        if (mSounds.getSound(sound) == resId) {
+            return;
+        }
+        mSounds.setSound(sound, resId);
+        if (getWindowToken() != null) {
+            // reload with the new sound
+            mSounds.release();
+            mSounds.acquire(getContext());
+        }
     }
 
-    public void setPromptTextColor(@ColorInt int color) {
-        setPromptTextColor(color, true);
+    /**
+     * Plays the error sound and vibrates for a rejected key
+     */
+    private void signalError() {
+        mSounds.play(PinPadSounds.SOUND_ERROR);
+        vibratePhone();
     }
 
-    public void setImageButtonSize(int size) {
-        setImageButtonSize(size, true);
+    public void vibratePhone() {
+        Vibrator v = (Vibrator) getContext().getSystemService(Context.VIBRATOR_SERVICE);
+        v.vibrate(mLiteRendering ? VIBRATION_DURATION_LITE : VIBRATION_DURATION);
     }
 
     /**
-     * Sets the pin length for the
+     * Locks or unlocks the keypad. While locked, key presses are ignored, e.g. during a lockout
+     * after too many wrong attempts.
      *
-     * @param length - length for the pin
+     * @param locked - true to ignore key presses
      */
-    public void setPinLength(int length) {
-        if (length < 0) return;
-        mPinLength = length;
-        createIndicators(getContext(), getAttrs());
-        updateIndicators(mPinBuilder.toString());
-        requestLayout();
+    public void setLocked(boolean locked) {
+        if (locked && !mLocked) {
+            cancelTouches();
+            // drop presses that are still down so they do not commit after the lock
+            mInputDispatcher.reset();
+        }
+        mLocked = locked;
     }
 
     /**
-     * Gets the length for the pin
-     *
-     * @return int
+     * Sends ACTION_CANCEL to the keys, so a key held down when the pinpad locks loses its pressed
+     * state instead of waiting for a lift the lock will swallow
      */
-    public int getPinLength() {
-        return mPinLength;
+    private void cancelTouches() {
+        long now = SystemClock.uptimeMillis();
+        MotionEvent cancel = MotionEvent.obtain(now, now, MotionEvent.ACTION_CANCEL, 0f, 0f, 0);
+        super.dispatchTouchEvent(cancel);
+        cancel.recycle();
+    }
+
+    public boolean isLocked() {
+        return mLocked;
     }
 
     /**
-     * Sets necessary click listeners
+     * Gets a thread-safe controller that batches commands from any thread into one
+     * UI thread update
+     *
+     * @return {@link PinPadController} controller
      */
-    private void setButtonClickListeners() {
-        for (PinPadButton button : mButtons) {
-            button.setButtonClickListener(mDigitClickListener);
-        }
-
-        mButtonDone.setButtonClickListener(mDoneButtonClickListener);
-        mButtonBack.setButtonClickListener(mBackButtonClickListener);
+    public PinPadController getController() {
+        return mController;
     }
 
     /**
-     * Updates the pin by updating the indicators as well as updating the listener
+     * Sets whether the pinpad wipes the entered pin and drops its drawables when it is detached
+     * from the window, e.g. when its fragment goes on the back stack. The drawables are reloaded
+     * when the pinpad is attached again. The wipe is reported to listeners like {@link #clear()}.
+     * Off by default, so a pinpad that is only moved between parents keeps its pin.
      *
-     * @param oldPin - old pin
-     * @param newPin - new pin
+     * @param releaseOnDetach - true to release on detach
      */
-    private void updatePin(String oldPin, String newPin) {
-        // update indicators
-        updateIndicators(newPin);
+    public void setReleaseOnDetach(boolean releaseOnDetach) {
+        mReleaseOnDetach = releaseOnDetach;
+    }
 
-        // update listener
-        if (mPinChangeListener != null) {
-            mPinChangeListener.onPinChanged(oldPin, newPin);
-        }
+    public boolean getReleaseOnDetach() {
+        return mReleaseOnDetach;
+    }
 
-        if (mAutoSubmit && mPinLength == mPinBuilder.length() && (mSubmitListener != null)) {
-            mSubmitListener.onCompleted(newPin);
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        mSounds.acquire(getContext());
+        if (mReleased) {
+            mReleased = false;
+            restoreHeavyState();
         }
     }
 
-    private void createIndicators(Context context, AttributeSet attrs) {
-        mLayoutIndicator.removeAllViews();
-        for (int i = 0; i < mPinLength; i++) {
-            Indicator indicator = new Indicator(context, attrs);
-            indicator.setChecked(false);
-            indicator.setIndicatorSize(mIndicatorSize);
-            indicator.setEmptyColor(mIndicatorEmptyColor);
-            indicator.setFilledColor(mIndicatorFilledColor);
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        mSounds.release();
+        if (mReleaseOnDetach && mButtons != null) {
+            mReleased = true;
+            releaseHeavyState();
+        }
+    }
 
-            int left, right;
-            if (i == 0) {
-                left = 0;
-                right = mIndicatorSpacing;
-            } else if (i == mPinLength - 1) {
-                left = mIndicatorSpacing;
-                right = 0;
-            } else {
-                left = mIndicatorSpacing;
-                right = mIndicatorSpacing;
+    /**
+     * Wipes the pin and drops everything that can be rebuilt from the style fields of this view
+     */
+    private void releaseHeavyState() {
+        mInputDispatcher.reset();
+        cancelVerification();
+        if (mCadenceCollector != null) {
+            mCadenceCollector.reset();
+        }
+        if (mStageBuffers != null) {
+            for (char[] buffer : mStageBuffers) {
+                SecureChars.wipe(buffer);
+            }
+        }
+        if (mPinBuilder.length() > 0) {
+            // listeners and indicators learn of the wipe as they do for clear()
+            clearPin();
+        }
+
+        for (PinPadButton button : mKeys) {
+            button.releaseDrawables();
+        }
+        for (int i = 0; i < mLayoutIndicator.getChildCount(); i++) {
+            ((Indicator) mLayoutIndicator.getChildAt(i)).releaseDrawables();
+        }
+    }
+
+    private void restoreHeavyState() {
+        for (PinPadButton button : mKeys) {
+            button.restoreDrawables();
+        }
+        for (int i = 0; i < mLayoutIndicator.getChildCount(); i++) {
+            ((Indicator) mLayoutIndicator.getChildAt(i)).restoreDrawables();
+        }
+        if (mStages != null) {
+            // the earlier stages were wiped, start the flow again
+            showStage(0);
+        }
+    }
+
+    @Override
+    public boolean dispatchTouchEvent(MotionEvent event) {
+        if (mLocked || mVerifying) {
+            // swallow the gesture so nothing behind the keypad receives it
+            return true;
+        }
+        return super.dispatchTouchEvent(event);
+    }
+
+    @Override
+    public boolean dispatchKeyEvent(KeyEvent event) {
+        if (mLocked || mVerifying) {
+            return true;
+        }
+        return super.dispatchKeyEvent(event);
+    }
+
+    /**
+     * Sets the render profile. The lite profile replaces key ripples with flat pressed colors,
+     * draws indicators without state list backgrounds and shortens haptics, for low-end devices.
+     *
+     * @param renderProfile - {@link #RENDER_PROFILE_AUTO}, {@link #RENDER_PROFILE_FULL}
+     *                      or {@link #RENDER_PROFILE_LITE}
+     */
+    public void setRenderProfile(int renderProfile) {
+        mRenderProfile = renderProfile;
+        boolean lite = renderProfile == RENDER_PROFILE_LITE
+                || (renderProfile == RENDER_PROFILE_AUTO && isLowRamDevice());
+        if (lite == mLiteRendering) {
+            return;
+        }
+        mLiteRendering = lite;
+
+        mLitePressedPaint.setColor(getLitePressedColor());
+        for (PinPadButton button : mKeys) {
+            button.setLiteRendering(lite);
+        }
+        for (int i = 0; i < mLayoutIndicator.getChildCount(); i++) {
+            ((Indicator) mLayoutIndicator.getChildAt(i)).setLiteRendering(lite);
+        }
+    }
+
+    int getLitePressedColor() {
+        return (mButtonTextColor & 0x00FFFFFF) | (LITE_PRESSED_ALPHA << 24);
+    }
+
+    public int getRenderProfile() {
+        return mRenderProfile;
+    }
+
+    /**
+     * @return true if the lite render profile is in effect
+     */
+    public boolean isLiteRendering() {
+        return mLiteRendering;
+    }
+
+    private boolean isLowRamDevice() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.KITKAT) {
+            return false;
+        }
+        ActivityManager activityManager = (ActivityManager) getContext().getSystemService(Context.ACTIVITY_SERVICE);
+        return activityManager != null && activityManager.isLowRamDevice();
+    }
+
+    /**
+     * Sets the listener to handle clicking done
+     *
+     * @param listener - {@link OnSubmitListener} listener
+     */
+    public void setOnSubmitListener(OnSubmitListener listener) {
+        mSubmitListener = listener;
+    }
+
+    /**
+     * Sets the listener to receive changes to the amount in amount mode
+     *
+     * @param listener - {@link OnAmountChangedListener} listener
+     */
+    public void setOnAmountChangedListener(OnAmountChangedListener listener) {
+        mAmountChangedListener = listener;
+    }
+
+    /**
+     * Sets the listener to handle clicking done in amount mode
+     *
+     * @param listener - {@link OnAmountSubmitListener} listener
+     */
+    public void setOnAmountSubmitListener(OnAmountSubmitListener listener) {
+        mAmountSubmitListener = listener;
+    }
+
+    /**
+     * Switches between collecting a pin and collecting an amount. The entry is cleared.
+     *
+     * @param entryMode - {@link #ENTRY_MODE_PIN} or {@link #ENTRY_MODE_AMOUNT}
+     */
+    public void setEntryMode(int entryMode) {
+        if (entryMode != ENTRY_MODE_PIN && entryMode != ENTRY_MODE_AMOUNT) {
+            throw new IllegalArgumentException("unknown entry mode " + entryMode);
+        }
+        boolean changed = mEntryMode != entryMode;
+        mEntryMode = entryMode;
+        boolean amount = entryMode == ENTRY_MODE_AMOUNT;
+        // both have the same fixed height, swapping them does not move the keys
+        mLayoutIndicator.setVisibility(amount ? GONE : VISIBLE);
+        mTextViewAmount.setVisibility(amount ? VISIBLE : GONE);
+        if (changed) {
+            assignButtonNumbers();
+            clear();
+        }
+        if (amount) {
+            showAmount();
+        }
+    }
+
+    public int getEntryMode() {
+        return mEntryMode;
+    }
+
+    /**
+     * Sets the number of decimal places of the amount currency, e.g. 2 for NGN or 0 for JPY.
+     * The amount is cleared.
+     *
+     * @param decimals - decimal places
+     */
+    public void setAmountDecimals(int decimals) {
+        mAmount.setDecimals(decimals);
+        clearAmount();
+    }
+
+    /**
+     * Sets the largest amount that can be entered. Digits that would go over it are rejected.
+     * An amount already over the new max is cleared, which is reported to the
+     * {@link OnAmountChangedListener}.
+     *
+     * @param maxAmount - max amount in minor units
+     */
+    public void setMaxAmount(long maxAmount) {
+        if (maxAmount > 0 && mAmount.getValue() > maxAmount) {
+            clearAmount();
+        }
+        mAmount.setMaxValue(maxAmount);
+        showAmount();
+    }
+
+    public long getMaxAmount() {
+        return mAmount.getMaxValue();
+    }
+
+    /**
+     * Sets the separators used to display the amount. Defaults to those of the default locale.
+     *
+     * @param decimalSeparator  - separator between units and decimals
+     * @param groupingSeparator - separator between groups of thousands, 0 for none
+     */
+    public void setAmountSeparators(char decimalSeparator, char groupingSeparator) {
+        mAmount.setSeparators(decimalSeparator, groupingSeparator);
+        showAmount();
+    }
+
+    /**
+     * Gets the amount entered in amount mode
+     *
+     * @return amount in minor units
+     */
+    public long getAmount() {
+        return mAmount.getValue();
+    }
+
+    /**
+     * Appends "00" to the amount, as the 00 key of a till does
+     */
+    public void appendDoubleZero() {
+        if (mEntryMode != ENTRY_MODE_AMOUNT) {
+            return;
+        }
+        long oldAmount = mAmount.getValue();
+        if (mAmount.appendDoubleZero()) {
+            mSounds.play(PinPadSounds.SOUND_KEY);
+            onAmountChanged(oldAmount);
+        } else {
+            signalError();
+        }
+    }
+
+    private void onAmountDigit(int digit) {
+        long oldAmount = mAmount.getValue();
+        if (mAmount.appendDigit(digit)) {
+            mSounds.play(PinPadSounds.SOUND_KEY);
+            onAmountChanged(oldAmount);
+        } else {
+            signalError();
+        }
+    }
+
+    private void onAmountBack() {
+        long oldAmount = mAmount.getValue();
+        if (mAmount.removeDigit()) {
+            mSounds.play(PinPadSounds.SOUND_KEY);
+            onAmountChanged(oldAmount);
+        } else {
+            signalError();
+        }
+    }
+
+    private void submitAmount() {
+        long amount = mAmount.getValue();
+        mSounds.play(amount == 0 ? PinPadSounds.SOUND_ERROR : PinPadSounds.SOUND_SUCCESS);
+        if (amount == 0 && mVibrateOnIncompleteSubmit) {
+            vibratePhone();
+        }
+        if (mAmountSubmitListener != null) {
+            if (amount == 0) {
+                mAmountSubmitListener.onIncompleteSubmit(amount);
+            } else {
+                mAmountSubmitListener.onCompleted(amount);
+            }
+        }
+    }
+
+    private void clearAmount() {
+        long oldAmount = mAmount.getValue();
+        mAmount.clear();
+        onAmountChanged(oldAmount);
+    }
+
+    private void onAmountChanged(long oldAmount) {
+        showAmount();
+        long newAmount = mAmount.getValue();
+        if (mAmountChangedListener != null && newAmount != oldAmount) {
+            mAmountChangedListener.onAmountChanged(oldAmount, newAmount);
+        }
+    }
+
+    /**
+     * Shows the amount from the reused format buffer, without building a string
+     */
+    private void showAmount() {
+        if (mEntryMode == ENTRY_MODE_AMOUNT) {
+            int length = mAmount.format();
+            mTextViewAmount.setText(mAmount.getBuffer(), 0, length);
+        }
+    }
+
+    /**
+     * Sets the pinpad prompt text
+     *
+     * @param promptText - text to display on the prompt field
+     */
+    public void setPromptText(String promptText) {
+        setPromptText(promptText, false);
+    }
+
+    /**
+     * Sets the pinpad prompt text, hinting whether it will be shown again
+     *
+     * @param promptText - text to display on the prompt field
+     * @param recurring  - true for text shown over and over, e.g. "Wrong PIN" or stage prompts,
+     *                   whose measured text is then kept for next time; false for text that keeps
+     *                   changing, e.g. countdowns
+     */
+    public void setPromptText(String promptText, boolean recurring) {
+        mPromptText = promptText;
+        mPromptRecurring = recurring;
+        if (mPromptLines > 0) {
+            // the prompt keeps its reserved height, so new text only needs a redraw
+            showPromptText();
+            return;
+        }
+        mTextViewPrompt.setVisibility(TextUtils.isEmpty(promptText) ? GONE : VISIBLE);
+        showPromptText();
+        requestLayout(PinPadDiagnostics.SOURCE_PROMPT);
+    }
+
+    /**
+     * Sets the prompt text on the TextView. With reserved lines and auto size text on, the text
+     * is fitted to the lines with a size span, leaving the TextView and its height at the full
+     * prompt size.
+     */
+    private void showPromptText() {
+        if (mPromptLines > 0 && mAutoSizeText && !TextUtils.isEmpty(mPromptText)) {
+            int measuredWidth = mTextViewPrompt.getMeasuredWidth();
+            if (measuredWidth != mPromptFitWidth || mPromptText.length() != mPromptFitLength) {
+                int width = measuredWidth - mTextViewPrompt.getTotalPaddingLeft()
+                        - mTextViewPrompt.getTotalPaddingRight();
+                mPromptFitSize = getTextSizeFitter().fitPrompt(mTextViewPrompt.getPaint(), mPromptText,
+                        width, mPromptLines, mTextSizePrompt);
+                mPromptFitWidth = measuredWidth;
+                mPromptFitLength = mPromptText.length();
             }
+            if (mPromptFitSize < mTextSizePrompt) {
+                int size = (int) mPromptFitSize;
+                if (mPromptSizeSpan == null || mPromptSizeSpan.getSize() != size) {
+                    mPromptSizeSpan = new AbsoluteSizeSpan(size);
+                }
+                mPromptSpannable.replace(0, mPromptSpannable.length(), mPromptText);
+                mPromptSpannable.setSpan(mPromptSizeSpan, 0, mPromptSpannable.length(),
+                        Spanned.SPAN_INCLUSIVE_INCLUSIVE);
+                mTextViewPrompt.setText(mPromptSpannable);
+                return;
+            }
+        }
+        mTextViewPrompt.setText(mPromptRecurring
+                ? mPromptTextCache.get(mTextViewPrompt, mPromptText) : mPromptText);
+    }
+
+    /**
+     * Fits the reserved-lines prompt again after its size, lines or typeface changed
+     */
+    private void refitPromptText() {
+        mPromptFitWidth = -1;
+        if (mPromptLines > 0) {
+            showPromptText();
+        }
+    }
+
+    /**
+     * Reserves a fixed height for the prompt, enough for the given number of lines. Prompt text
+     * changes then redraw the prompt without laying out the pinpad again, which suits prompts
+     * that update often, e.g. countdowns. Text longer than the reserved lines is ellipsized. With
+     * auto size text on, the text is shrunk to fit the reserved lines; it is measured again only
+     * when its length or the prompt width changes.
+     *
+     * @param lines - lines to reserve, or 0 to size the prompt to its text
+     */
+    public void setPromptLines(int lines) {
+        lines = Math.max(0, lines);
+        if (mPromptLines == lines) {
+            return;
+        }
+        mPromptLines = lines;
+        mFittedPromptSize = 0;
+        // reserved lines are sized for the full prompt size; auto size fits the text inside them
+        setPromptTextSize(mTextSizePrompt, false);
+        applyPromptLines();
+        mPromptFitWidth = -1;
+        showPromptText();
+        requestLayout(PinPadDiagnostics.SOURCE_PROMPT);
+    }
+
+    public int getPromptLines() {
+        return mPromptLines;
+    }
+
+    /**
+     * Sets the pinpad promptPadding
+     *
+     * @param padding - padding for prompt in pixels
+     */
+    public void setPromptPadding(int padding) {
+        mPromptPadding = padding;
+        setPromptPadding(padding, true);
+    }
+
+    /**
+     * Sets the pinpad promptPadding
+     *
+     * @param paddingTop - padding for prompt top in pixels
+     */
+    public void setPromptPaddingTop(int paddingTop) {
+        mPromptPaddingTop = paddingTop;
+        setPromptPaddingTop(paddingTop, true);
+    }
+
+    public int getPromptPaddingTop() {
+        return mPromptPaddingTop;
+    }
+
+    public int getPromptPadding() {
+        return mPromptPadding;
+    }
+
+    public int getPromptPaddingBottom() {
+        return mPromptPaddingBottom;
+    }
+
+    /**
+     * Sets the pinpad promptPadding
+     *
+     * @param paddingBottom - padding for prompt bottom in pixels
+     */
+    public void setPromptPaddingBottom(int paddingBottom) {
+        mPromptPaddingBottom = paddingBottom;
+        setPromptPaddingBottom(paddingBottom, true);
+    }
+
+    /**
+     * Sets the textsize for the prompt text
+     *
+     * @param textSize - textsize for the prompt text in pixels
+     */
+    public void setPromptTextSize(float textSize) {
+        mTextSizePrompt = textSize;
+        mFittedPromptSize = 0;
+        setPromptTextSize(textSize, true);
+        refitPromptText();
+    }
+
+    /**
+     * Sets the textSize for the numeric text
+     *
+     * @param textSize - textisze for the numeric text in pixles
+     */
+    public void setNumericTextSize(float textSize) {
+        mTextSizeNumeric = textSize;
+        mFittedNumericSize = 0;
+        setNumericTextSize(textSize, true);
+    }
 
-            LinearLayout.LayoutParams params = new LinearLayout.LayoutParams(mIndicatorSize, mIndicatorSize);
-            params.gravity = Gravity.CENTER;
+    public void setAlphabetTextSize(float textSize) {
+        mTextSizeAlpha = textSize;
+        mFittedAlphaSize = 0;
+        setAlphabetTextSize(textSize, true);
+    }
+
+    /**
+     * Shrinks the key and prompt text to fit the measured pinpad. While on, the text sizes set on
+     * the pinpad are the largest sizes the text will be drawn at. When a fitted size changes, the
+     * key and prompt text views are laid out again and measured a second time in the same pass;
+     * {@link PinPadDiagnostics#SOURCE_AUTO_SIZE} counts how often that happens.
+     *
+     * @param autoSizeText - true to fit the text
+     */
+    public void setAutoSizeText(boolean autoSizeText) {
+        if (mAutoSizeText == autoSizeText) {
+            return;
+        }
+        mAutoSizeText = autoSizeText;
+        mFittedNumericSize = 0;
+        mFittedAlphaSize = 0;
+        mFittedPromptSize = 0;
+        if (!autoSizeText) {
+            setNumericTextSize(mTextSizeNumeric, false);
+            setAlphabetTextSize(mTextSizeAlpha, false);
+            setPromptTextSize(mTextSizePrompt, false);
+        }
+        refitPromptText();
+        requestLayout(PinPadDiagnostics.SOURCE_TEXT_STYLE);
+    }
+
+    public boolean getAutoSizeText() {
+        return mAutoSizeText;
+    }
+
+    public void setButtonTextColor(@ColorInt int color) {
+        setButtonTextColor(color, true);
+    }
+
+    public void setPromptTextColor(@ColorInt int color) {
+        setPromptTextColor(color, true);
+    }
+
+    public void setImageButtonSize(int size) {
+        setImageButtonSize(size, true);
+    }
+
+    /**
+     * Sets the typeface for the key labels
+     *
+     * @param typeface - typeface for the key labels
+     */
+    public void setButtonTypeface(Typeface typeface) {
+        if (mTextSizeFitter != null) {
+            mTextSizeFitter.clear();
+        }
+        mButtonTypeface = typeface;
+        for (PinPadButton button : mKeys) {
+            button.setTypeface(typeface);
+        }
+    }
+
+    /**
+     * Sets the typeface for the prompt text
+     *
+     * @param typeface - typeface for the prompt text
+     */
+    public void setPromptTypeface(Typeface typeface) {
+        if (mTextSizeFitter != null) {
+            mTextSizeFitter.clear();
+        }
+        mTextViewPrompt.setTypeface(typeface);
+        updatePromptHeight();
+        refitPromptText();
+    }
+
+    /**
+     * Starts loading the button_font and prompt_font resources. The pinpad draws with the default
+     * typeface until they arrive, so the first frame is not held up by font loading.
+     */
+    private void loadFonts(Context context) {
+        if (mButtonFont != 0) {
+            PinPadResources.loadTypeface(context, mButtonFont, new PinPadResources.TypefaceCallback() {
+                @Override
+                public void onTypefaceLoaded(Typeface typeface) {
+                    if (typeface != null) {
+                        setButtonTypeface(typeface);
+                    }
+                }
+            });
+        }
+        if (mPromptFont != 0) {
+            PinPadResources.loadTypeface(context, mPromptFont, new PinPadResources.TypefaceCallback() {
+                @Override
+                public void onTypefaceLoaded(Typeface typeface) {
+                    if (typeface != null) {
+                        setPromptTypeface(typeface);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Sets the pin length for the
+     *
+     * @param length - length for the pin
+     */
+    public void setPinLength(int length) {
+        if (length < 0) return;
+        mPinLength = length;
+        if (syncIndicators(getContext(), getAttrs())) {
+            updateIndicators(mPinBuilder.length());
+            requestLayout(PinPadDiagnostics.SOURCE_PIN_LENGTH);
+        }
+    }
+
+    /**
+     * Gets the length for the pin
+     *
+     * @return int
+     */
+    public int getPinLength() {
+        return mPinLength;
+    }
+
+    /**
+     * Queues a pin change for the listeners and delivers it, unless a delivery is already running
+     * further up the stack (e.g. a listener called {@link #clear()}), in which case the running
+     * delivery picks it up once the current callback returns.
+     *
+     * @param type   - one of the {@link OnPinEventListener} TYPE_ constants
+     * @param oldPin - old pin, only built when an {@link OnPinChangedListener} is set
+     */
+    private void updatePin(int type, String oldPin) {
+        int length = mPinBuilder.length();
+        boolean submit = mAutoSubmit && length == mPinLength;
+        String newPin = null;
+        if (mPinChangeListener != null || (submit && mStages == null && mPinVerifier == null)) {
+            newPin = mPinBuilder.toString();
+        }
+        if (submit && mStages != null) {
+            captureStageEntry();
+        } else if (submit && mPinVerifier != null) {
+            captureVerifyEntry();
+        }
+        mPendingChanges.add(type, length, submit, oldPin, newPin);
+        deliverPinChanges();
+    }
+
+    /**
+     * Queues a submit from the done key and delivers it
+     */
+    private void submitPin() {
+        int length = mPinBuilder.length();
+        boolean complete = length == mPinLength;
+        String pin = null;
+        if (complete && mStages != null) {
+            captureStageEntry();
+        } else if (complete && mPinVerifier != null) {
+            captureVerifyEntry();
+        } else {
+            pin = mPinBuilder.toString();
+        }
+        mPendingChanges.add(complete ? OnPinEventListener.TYPE_SUBMITTED : OnPinEventListener.TYPE_INCOMPLETE_SUBMIT,
+                length, complete, null, pin);
+        deliverPinChanges();
+    }
+
+    /**
+     * Delivers queued changes in order, then updates the indicators once for all of them
+     */
+    private void deliverPinChanges() {
+        if (mDeliveringPinChanges) {
+            return;
+        }
+        mDeliveringPinChanges = true;
+        boolean traced = PinPadTrace.beginSection(PinPadTrace.UPDATE_PIN);
+        try {
+            while (mPendingChanges.poll()) {
+                deliverPinChange(mPendingChanges);
+                mPendingChanges.releaseCurrent();
+            }
+            updateIndicators(mPinBuilder.length());
+        } finally {
+            mDeliveringPinChanges = false;
+            PinPadTrace.endSection(traced);
+        }
+    }
+
+    private void deliverPinChange(PinChangeQueue change) {
+        int type = change.getType();
+        int length = change.getLength();
+        if (type == OnPinEventListener.TYPE_INCOMPLETE_SUBMIT) {
+            mSounds.play(PinPadSounds.SOUND_ERROR);
+            mPinEvents.dispatch(type, length);
+            if (mSubmitListener != null) {
+                mSubmitListener.onIncompleteSubmit(change.getNewPin());
+            }
+            return;
+        }
+
+        if (type != OnPinEventListener.TYPE_SUBMITTED) {
+            mPinEvents.dispatch(type, length);
+            if (mPinChangeListener != null) {
+                mPinChangeListener.onPinChanged(change.getOldPin(), change.getNewPin());
+            }
+        }
+
+        if (change.isSubmit()) {
+            mPinEvents.dispatch(OnPinEventListener.TYPE_SUBMITTED, length);
+            if (mStages != null) {
+                // a staged flow reports its cadence once, when the last stage is done
+                onStageEntered();
+                return;
+            }
+            if (mCadenceCollector != null) {
+                mCadenceCollector.onSubmit();
+            }
+            if (mPinVerifier != null) {
+                startVerification();
+            } else {
+                mSounds.play(PinPadSounds.SOUND_SUCCESS);
+                if (mSubmitListener != null) {
+                    mSubmitListener.onCompleted(change.getNewPin());
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks complete pins against a stored hash instead of handing them to the
+     * {@link OnSubmitListener}. While a pin is being checked the keypad ignores key presses;
+     * once the result is in, the pin is cleared and the callback is invoked on the UI thread.
+     *
+     * @param verifier - {@link PinVerifier} verifier, or null to go back to the submit listener
+     * @param callback - receives whether the pin matched
+     */
+    public void setPinVerifier(PinVerifier verifier, PinVerifier.Callback callback) {
+        cancelVerification();
+        mPinVerifier = verifier;
+        mPinVerifierCallback = callback;
+    }
+
+    /**
+     * Gets whether a submitted pin is being checked by the {@link PinVerifier}
+     *
+     * @return boolean
+     */
+    public boolean isVerifying() {
+        return mVerifying;
+    }
+
+    /**
+     * Copies the complete pin for the verifier at the time it was submitted
+     */
+    private void captureVerifyEntry() {
+        SecureChars.wipe(mVerifyBuffer);
+        mVerifyBuffer = new char[mPinBuilder.length()];
+        mPinBuilder.getChars(0, mVerifyBuffer.length, mVerifyBuffer, 0);
+    }
+
+    private void startVerification() {
+        if (mVerifyBuffer == null) {
+            return;
+        }
+        mVerifying = true;
+        mInputDispatcher.reset();
+        final int generation = ++mVerifyGeneration;
+        final PinVerifier.Callback callback = mPinVerifierCallback;
+        mPinVerifier.verify(mVerifyBuffer, new PinVerifier.Callback() {
+            @Override
+            public void onResult(boolean matches) {
+                if (generation != mVerifyGeneration) {
+                    return;
+                }
+                mVerifying = false;
+                clear();
+                mSounds.play(matches ? PinPadSounds.SOUND_SUCCESS : PinPadSounds.SOUND_ERROR);
+                if (callback != null) {
+                    callback.onResult(matches);
+                }
+            }
+        });
+        SecureChars.wipe(mVerifyBuffer);
+        mVerifyBuffer = null;
+    }
+
+    /**
+     * Drops the result of a running verification
+     */
+    private void cancelVerification() {
+        mVerifyGeneration++;
+        mVerifying = false;
+        SecureChars.wipe(mVerifyBuffer);
+        mVerifyBuffer = null;
+    }
+
+    /**
+     * Builds the current pin for {@link OnPinChangedListener}, skipping the copy when nobody listens
+     */
+    private String getPinForListener() {
+        return mPinChangeListener != null ? mPinBuilder.toString() : null;
+    }
+
+    /**
+     * Adds or removes indicators so there is one per pin digit. Existing indicators are reused,
+     * so changing the length only touches the difference and the indicators at the edges.
+     *
+     * @return true if indicators were added or removed
+     */
+    private boolean syncIndicators(Context context, AttributeSet attrs) {
+        int count = mLayoutIndicator.getChildCount();
+        if (count == mPinLength) {
+            return false;
+        }
+        boolean traced = PinPadTrace.beginSection(PinPadTrace.SYNC_INDICATORS);
+        try {
+            if (count > mPinLength) {
+                mLayoutIndicator.removeViews(mPinLength, count - mPinLength);
+            } else {
+                for (int i = count; i < mPinLength; i++) {
+                    Indicator indicator = new Indicator(context, attrs);
+                    indicator.setDiagnostics(mDiagnostics);
+                    indicator.setChecked(false);
+                    indicator.setIndicatorSize(mIndicatorSize);
+                    indicator.setEmptyColor(mIndicatorEmptyColor);
+                    indicator.setFilledColor(mIndicatorFilledColor);
+                    indicator.setLiteRendering(mLiteRendering);
+
+                    LinearLayout.LayoutParams params = new LinearLayout.LayoutParams(mIndicatorSize, mIndicatorSize);
+                    params.gravity = Gravity.CENTER;
+                    indicator.setLayoutParams(params);
+
+                    mLayoutIndicator.addView(indicator);
+                    updateIndicatorMargins(i);
+                }
+            }
+
+            // the old last indicator gains/loses its trailing spacing, the new last one loses it
+            if (count > 0 && count - 1 < mPinLength) {
+                updateIndicatorMargins(count - 1);
+            }
+            if (mPinLength > 0) {
+                updateIndicatorMargins(mPinLength - 1);
+            }
+            return true;
+        } finally {
+            PinPadTrace.endSection(traced);
+        }
+    }
+
+    private void updateIndicatorMargins(int index) {
+        int left, right;
+        if (index == 0) {
+            left = 0;
+            right = mIndicatorSpacing;
+        } else if (index == mPinLength - 1) {
+            left = mIndicatorSpacing;
+            right = 0;
+        } else {
+            left = mIndicatorSpacing;
+            right = mIndicatorSpacing;
+        }
+
+        View indicator = mLayoutIndicator.getChildAt(index);
+        LinearLayout.LayoutParams params = (LinearLayout.LayoutParams) indicator.getLayoutParams();
+        if (params.leftMargin != left || params.rightMargin != right) {
             params.setMargins(left, 0, right, 0);
             indicator.setLayoutParams(params);
-
-            mLayoutIndicator.addView(indicator);
         }
     }
 
-    private void updateIndicators(String pin) {
-        if (pin.length() <= mLayoutIndicator.getChildCount()) {
-            for (int i = 0; i < pin.length(); i++) {
+    private void updateIndicators(int pinLength) {
+        if (pinLength <= mLayoutIndicator.getChildCount()) {
+            for (int i = 0; i < pinLength; i++) {
                 Indicator indicator = (Indicator) mLayoutIndicator.getChildAt(i);
                 indicator.setChecked(true);
             }
-            for (int i = pin.length(); i < mLayoutIndicator.getChildCount(); i++) {
+            for (int i = pinLength; i < mLayoutIndicator.getChildCount(); i++) {
                 Indicator indicator = (Indicator) mLayoutIndicator.getChildAt(i);
                 indicator.setChecked(false);
             }
         }
-        requestLayout();
     }
 
     /**
-     * Click listener for the 0-9 buttons
+     * Click listener for every key; what a key does is looked up from its slot
      */
-    private PinPadButton.OnButtonClickListener mDigitClickListener = new PinPadButton.OnButtonClickListener() {
+    private PinPadButton.OnButtonClickListener mKeyClickListener = new PinPadButton.OnButtonClickListener() {
         @Override
         public void onButtonClick(PinPadButton button) {
-            if (mPinBuilder.length() < getPinLength()) {
-                String oldPin = mPinBuilder.toString();
+            int slot = button.getKeySlot();
+            switch (mKeyLayout.getKeyType(slot)) {
+                case PinPadKeyLayout.KEY_DIGIT:
+                    onDigitKey(mSlotDigits[slot]);
+                    break;
+                case PinPadKeyLayout.KEY_BACK:
+                    onBackKey();
+                    break;
+                case PinPadKeyLayout.KEY_DONE:
+                    onDoneKey();
+                    break;
+                case PinPadKeyLayout.KEY_DOUBLE_ZERO:
+                    onDoubleZeroKey();
+                    break;
+                case PinPadKeyLayout.KEY_CLEAR:
+                    mSounds.play(PinPadSounds.SOUND_KEY);
+                    clear();
+                    break;
+                case PinPadKeyLayout.KEY_BIOMETRIC:
+                    mSounds.play(PinPadSounds.SOUND_KEY);
+                    if (mBiometricKeyListener != null) {
+                        mBiometricKeyListener.onBiometricKeyClicked();
+                    }
+                    break;
+            }
+        }
+    };
 
-                String number = getValueForButton(button);
-                mPinBuilder.append(number);
-                updatePin(oldPin, mPinBuilder.toString());
+    private void onDigitKey(int digit) {
+        boolean traced = PinPadTrace.beginSection(PinPadTrace.DIGIT_CLICK);
+        try {
+            if (mEntryMode == ENTRY_MODE_AMOUNT) {
+                onAmountDigit(digit);
+            } else if (mPinBuilder.length() < getPinLength()) {
+                String oldPin = getPinForListener();
+
+                mPinBuilder.append(digit);
+                mSounds.play(PinPadSounds.SOUND_KEY);
+                if (mCadenceCollector != null) {
+                    mCadenceCollector.onKey(TypingCadenceCollector.KEY_DIGIT);
+                }
+                updatePin(OnPinEventListener.TYPE_DIGIT_ADDED, oldPin);
             } else {
-                vibratePhone();
+                signalError();
             }
+        } finally {
+            PinPadTrace.endSection(traced);
         }
-    };
+    }
+
+    /**
+     * Appends 00 to amounts; pins get two 0 digits, as far as the pin length allows
+     */
+    private void onDoubleZeroKey() {
+        if (mEntryMode == ENTRY_MODE_AMOUNT) {
+            appendDoubleZero();
+        } else {
+            // a pin completed by the first 0 may already have been submitted
+            int room = getPinLength() - mPinBuilder.length();
+            onDigitKey(0);
+            if (room >= 2) {
+                onDigitKey(0);
+            }
+        }
+    }
 
     public void clear() {
-        String oldPin = mPinBuilder.toString();
-        mPinBuilder.setLength(0);
-        updatePin(oldPin, mPinBuilder.toString());
+        if (mEntryMode == ENTRY_MODE_AMOUNT) {
+            clearAmount();
+            return;
+        }
+        if (mCadenceCollector != null) {
+            mCadenceCollector.reset();
+        }
+        clearPin();
     }
 
     /**
-     * Click listener for the back button
+     * Wipes the pin and notifies the listeners, leaving the cadence collector running
      */
-    private PinPadButton.OnButtonClickListener mBackButtonClickListener = new PinPadButton.OnButtonClickListener() {
-        @Override
-        public void onButtonClick(PinPadButton button) {
+    private void clearPin() {
+        String oldPin = getPinForListener();
+        SecureChars.wipe(mPinBuilder);
+        updatePin(OnPinEventListener.TYPE_CLEARED, oldPin);
+    }
+
+    /**
+     * Collects several pins in a row on this keypad, e.g. a new PIN followed by its confirmation.
+     * Only the prompt text and indicators change between stages. While stages are running,
+     * completed entries go to the stages listener instead of the {@link OnSubmitListener}.
+     * The prompt text and pin length set before the stages are restored once they complete or
+     * are cancelled, and typing cadence is reported once for the whole flow.
+     *
+     * @param listener - {@link OnStagesCompletedListener} listener
+     * @param stages   - stages to run in order
+     */
+    public void startStages(OnStagesCompletedListener listener, PinEntryStage... stages) {
+        if (stages == null || stages.length == 0) {
+            throw new IllegalArgumentException("at least one stage is required");
+        }
+        for (int i = 0; i < stages.length; i++) {
+            int confirms = stages[i].getConfirmsStage();
+            if (confirms != PinEntryStage.NO_CONFIRMATION && (confirms < 0 || confirms >= i
+                    || stages[confirms].getPinLength() != stages[i].getPinLength())) {
+                throw new IllegalArgumentException("stage " + i + " cannot confirm stage " + confirms);
+            }
+        }
+        if (mStages == null) {
+            mPreStagePromptText = mPromptText;
+            mPreStagePinLength = mPinLength;
+        }
+        endStages();
+        if (mCadenceCollector != null) {
+            mCadenceCollector.reset();
+        }
+        mStages = stages.clone();
+        mStageBuffers = new char[stages.length][];
+        for (int i = 0; i < stages.length; i++) {
+            mStageBuffers[i] = new char[stages[i].getPinLength()];
+        }
+        mStagesListener = listener;
+        showStage(0);
+    }
+
+    /**
+     * Leaves multi-stage mode, wiping the pins collected so far, including one being entered,
+     * and restoring the prompt text and pin length set before the stages started
+     */
+    public void cancelStages() {
+        if (mStages == null) {
+            return;
+        }
+        endStages();
+        if (mPinBuilder.length() > 0) {
+            // a partial stage entry may not even fit the restored pin length
+            clearPin();
+        }
+        if (!TextUtils.equals(mPromptText, mPreStagePromptText)) {
+            setPromptText(mPreStagePromptText);
+        }
+        if (mPinLength != mPreStagePinLength) {
+            setPinLength(mPreStagePinLength);
+        }
+        mPreStagePromptText = null;
+    }
+
+    private void endStages() {
+        if (mStageBuffers != null) {
+            for (char[] buffer : mStageBuffers) {
+                SecureChars.wipe(buffer);
+            }
+        }
+        mStages = null;
+        mStageBuffers = null;
+        mStagesListener = null;
+        mCurrentStage = 0;
+    }
+
+    /**
+     * Gets the index of the stage currently being entered
+     *
+     * @return int
+     */
+    public int getCurrentStage() {
+        return mCurrentStage;
+    }
+
+    private void showStage(int stage) {
+        mCurrentStage = stage;
+        PinEntryStage entry = mStages[stage];
+        setPromptText(entry.getPromptText(), true);
+        if (entry.getPinLength() != mPinLength) {
+            setPinLength(entry.getPinLength());
+        }
+        if (mPinBuilder.length() > 0) {
+            clearPin();
+        }
+    }
+
+    /**
+     * Moves the pin of the current stage into its own buffer
+     */
+    private void captureStageEntry() {
+        char[] buffer = mStageBuffers[mCurrentStage];
+        mPinBuilder.getChars(0, buffer.length, buffer, 0);
+    }
+
+    /**
+     * Checks the pin captured for the current stage and advances to the next stage
+     */
+    private void onStageEntered() {
+        int stage = mCurrentStage;
+        char[] buffer = mStageBuffers[stage];
+        // the pin now lives in the stage buffer
+        clearPin();
+        OnStagesCompletedListener listener = mStagesListener;
+
+        int confirms = mStages[stage].getConfirmsStage();
+        if (confirms != PinEntryStage.NO_CONFIRMATION
+                && !SecureChars.constantTimeEquals(mStageBuffers[confirms], buffer)) {
+            for (int i = confirms; i <= stage; i++) {
+                SecureChars.wipe(mStageBuffers[i]);
+            }
+            showStage(confirms);
+            mSounds.play(PinPadSounds.SOUND_ERROR);
+            if (listener != null) {
+                listener.onStageMismatch(stage);
+            }
+        } else if (stage < mStages.length - 1) {
+            showStage(stage + 1);
+            mSounds.play(PinPadSounds.SOUND_SUCCESS);
+            if (listener != null) {
+                listener.onStageCompleted(stage);
+            }
+        } else {
+            String[] pins = new String[mStageBuffers.length];
+            for (int i = 0; i < pins.length; i++) {
+                pins[i] = new String(mStageBuffers[i]);
+            }
+            if (mCadenceCollector != null) {
+                mCadenceCollector.onSubmit();
+            }
+            cancelStages();
+            mSounds.play(PinPadSounds.SOUND_SUCCESS);
+            if (listener != null) {
+                listener.onStagesCompleted(pins);
+            }
+        }
+    }
+
+    private void onBackKey() {
+        boolean traced = PinPadTrace.beginSection(PinPadTrace.BACK_CLICK);
+        try {
+            if (mEntryMode == ENTRY_MODE_AMOUNT) {
+                onAmountBack();
+                return;
+            }
+            if (mCadenceCollector != null) {
+                mCadenceCollector.onKey(TypingCadenceCollector.KEY_BACKSPACE);
+            }
             if (mPinBuilder.length() > 0) {
-                String oldPin = mPinBuilder.toString();
-                mPinBuilder.replace(mPinBuilder.length() - 1, mPinBuilder.length(), "");
-                updatePin(oldPin, mPinBuilder.toString().trim());
+                String oldPin = getPinForListener();
+                mPinBuilder.setLength(mPinBuilder.length() - 1);
+                mSounds.play(PinPadSounds.SOUND_KEY);
+                updatePin(OnPinEventListener.TYPE_DIGIT_REMOVED, oldPin);
             } else {
+                signalError();
+            }
+        } finally {
+            PinPadTrace.endSection(traced);
+        }
+    }
+
+    private void onDoneKey() {
+        boolean traced = PinPadTrace.beginSection(PinPadTrace.DONE_CLICK);
+        try {
+            if (mEntryMode == ENTRY_MODE_AMOUNT) {
+                submitAmount();
+                return;
+            }
+            if (mPinBuilder.length() != mPinLength && mVibrateOnIncompleteSubmit) {
                 vibratePhone();
             }
+            submitPin();
+        } finally {
+            PinPadTrace.endSection(traced);
         }
-    };
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        mDiagnostics.count(PinPadDiagnostics.TARGET_PINPAD, PinPadDiagnostics.EVENT_MEASURE);
+        super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        if (mAutoSizeText && fitTextSizes()) {
+            // the new sizes request layout on the text views; measure them again in this pass
+            mDiagnostics.countSource(PinPadDiagnostics.SOURCE_AUTO_SIZE);
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        }
+    }
+
+    private TextSizeFitter getTextSizeFitter() {
+        if (mTextSizeFitter == null) {
+            DisplayMetrics metrics = getResources().getDisplayMetrics();
+            mTextSizeFitter = new TextSizeFitter(
+                    TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, AUTO_SIZE_MIN_TEXT_SIZE, metrics),
+                    TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, AUTO_SIZE_ALPHABET_GAP, metrics));
+        }
+        return mTextSizeFitter;
+    }
 
     /**
-     * Click listener for the done button
+     * Fits the key and prompt text to the sizes just measured
+     *
+     * @return true if any text size changed
      */
-    private PinPadButton.OnButtonClickListener mDoneButtonClickListener = new PinPadButton.OnButtonClickListener() {
-        @Override
-        public void onButtonClick(PinPadButton button) {
-            if (mPinBuilder.toString().length() == mPinLength) {
-                if (mSubmitListener != null) {
-                    mSubmitListener.onCompleted(mPinBuilder.toString());
-                }
-            } else {
-                if (mVibrateOnIncompleteSubmit) {
-                    vibratePhone();
-                }
-                if (mSubmitListener != null) {
-                    mSubmitListener.onIncompleteSubmit(mPinBuilder.toString());
+    private boolean fitTextSizes() {
+        getTextSizeFitter();
+        boolean changed = false;
+
+        int cellWidth = mSizingButton.getMeasuredWidth() - mSizingButton.getPaddingLeft() - mSizingButton.getPaddingRight();
+        int cellHeight = mSizingButton.getMeasuredHeight() - mSizingButton.getPaddingTop() - mSizingButton.getPaddingBottom();
+        if (cellWidth > 0 && cellHeight > 0) {
+            boolean alphabet = false;
+            for (PinPadButton button : mButtons) {
+                if (!TextUtils.isEmpty(button.getAlphabetText())) {
+                    alphabet = true;
+                    break;
                 }
             }
+            mTextSizeFitter.setMaxKeySizes(mTextSizeNumeric, mTextSizeAlpha);
+            float[] sizes = mTextSizeFitter.fitKey(mSizingButton.getNumericPaint(), cellWidth, cellHeight, alphabet);
+            if (sizes[0] != mFittedNumericSize) {
+                mFittedNumericSize = sizes[0];
+                setNumericTextSize(sizes[0], false);
+                changed = true;
+            }
+            if (sizes[1] != mFittedAlphaSize) {
+                mFittedAlphaSize = sizes[1];
+                setAlphabetTextSize(sizes[1], false);
+                changed = true;
+            }
         }
-    };
 
-    private String getValueForButton(PinPadButton button) {
-        if (button != null) {
-            return mButtonNumbers.get(button).toString();
+        if (mPromptLines > 0) {
+            // the reserved height does not change; refit the text if the width did
+            if (mTextViewPrompt.getMeasuredWidth() != mPromptFitWidth) {
+                showPromptText();
+            }
+        } else if (mTextViewPrompt.getVisibility() != GONE) {
+            int promptWidth = mTextViewPrompt.getMeasuredWidth() - mTextViewPrompt.getTotalPaddingLeft()
+                    - mTextViewPrompt.getTotalPaddingRight();
+            int lines = PinPadCompat.getMaxLines(mTextViewPrompt);
+            if (lines <= 0 || lines == Integer.MAX_VALUE) {
+                lines = DEFAULT_AUTO_SIZE_PROMPT_LINES;
+            }
+            float promptSize = mTextSizeFitter.fitPrompt(mTextViewPrompt.getPaint(),
+                    mTextViewPrompt.getText(), promptWidth, lines, mTextSizePrompt);
+            if (promptSize != mFittedPromptSize) {
+                mFittedPromptSize = promptSize;
+                setPromptTextSize(promptSize, false);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+        mDiagnostics.count(PinPadDiagnostics.TARGET_PINPAD, PinPadDiagnostics.EVENT_LAYOUT);
+        super.onLayout(changed, left, top, right, bottom);
+    }
+
+    @Override
+    protected void dispatchDraw(Canvas canvas) {
+        mDiagnostics.count(PinPadDiagnostics.TARGET_PINPAD, PinPadDiagnostics.EVENT_DRAW);
+        super.dispatchDraw(canvas);
+        if (mLiteRendering) {
+            drawPressedKeys(canvas);
+        }
+    }
+
+    /**
+     * Draws the flat pressed color over the pressed keys. In lite mode the keys have no
+     * drawables of their own, so this is the only layer drawn over the pinpad background.
+     */
+    private void drawPressedKeys(Canvas canvas) {
+        for (PinPadButton button : mKeys) {
+            if (button.isPressed() && button.getVisibility() == VISIBLE) {
+                button.getDrawingRect(mPressedBounds);
+                offsetDescendantRectToMyCoords(button, mPressedBounds);
+                canvas.drawRect(mPressedBounds, mLitePressedPaint);
+            }
+        }
+    }
+
+    @Override
+    public void requestLayout() {
+        // the framework calls this before our fields are initialised
+        if (mDiagnostics != null) {
+            mDiagnostics.count(PinPadDiagnostics.TARGET_PINPAD, PinPadDiagnostics.EVENT_REQUEST_LAYOUT);
         }
-        return "";
+        super.requestLayout();
+    }
+
+    /**
+     * Requests a layout, recording which setter asked for it
+     *
+     * @param source - one of the {@link PinPadDiagnostics} SOURCE_ constants
+     */
+    private void requestLayout(int source) {
+        mDiagnostics.countSource(source);
+        requestLayout();
     }
 
     /***************************
      * private overloaded methods
      ***************************/
     private void setButtonTextColor(@ColorInt int color, boolean requestLayout) {
-        for (PinPadButton button : mButtons) {
-            if (button != null) {
-                button.setTextColor(color);
-            }
+        mButtonTextColor = color;
+        // also tints the glyph keys
+        for (PinPadButton button : mKeys) {
+            button.setTextColor(color);
+        }
+        // the lite pressed color follows the key text color
+        mLitePressedPaint.setColor(getLitePressedColor());
+        if (mLiteRendering) {
+            invalidate();
         }
-        mButtonDone.setTextColor(color);
         if (requestLayout) {
-            requestLayout();
+            requestLayout(PinPadDiagnostics.SOURCE_TEXT_STYLE);
         }
     }
 
     private void setPromptTextColor(@ColorInt int color, boolean requestLayout) {
         mTextViewPrompt.setTextColor(color);
+        mTextViewAmount.setTextColor(color);
         if (requestLayout) {
-            requestLayout();
+            requestLayout(PinPadDiagnostics.SOURCE_TEXT_STYLE);
         }
     }
 
     private void setNumericTextSize(float textSize, boolean requestLayout) {
-        for (PinPadButton button : mButtons) {
-            if (button != null) {
-                button.setNumericTextSize(textSize);
-            }
+        for (PinPadButton button : mKeys) {
+            button.setNumericTextSize(textSize);
         }
-        mButtonDone.setNumericTextSize(textSize);
         if (requestLayout) {
-            requestLayout();
+            requestLayout(PinPadDiagnostics.SOURCE_TEXT_STYLE);
         }
     }
 
     private void setPromptTextSize(float textSize, boolean requestLayout) {
         mTextViewPrompt.setTextSize(TypedValue.COMPLEX_UNIT_PX, textSize);
+        updatePromptHeight();
         if (requestLayout) {
-            requestLayout();
+            requestLayout(PinPadDiagnostics.SOURCE_TEXT_STYLE);
         }
     }
 
     private void setPromptPadding(int padding, boolean requestLayout) {
         mTextViewPrompt.setPadding(padding, padding, padding, padding);
+        updatePromptHeight();
         if (requestLayout) {
-            requestLayout();
+            requestLayout(PinPadDiagnostics.SOURCE_PROMPT);
         }
     }
 
     private void setPromptPaddingTop(int paddingTop, boolean requestLayout) {
         mTextViewPrompt.setPadding(mTextViewPrompt.getPaddingLeft(), paddingTop, mTextViewPrompt.getPaddingRight(), mTextViewPrompt.getPaddingBottom());
+        updatePromptHeight();
         if (requestLayout) {
-            requestLayout();
+            requestLayout(PinPadDiagnostics.SOURCE_PROMPT);
         }
     }
 
     private void setPromptPaddingBottom(int paddingBottom, boolean requestLayout) {
         mTextViewPrompt.setPadding(mTextViewPrompt.getPaddingLeft(), mTextViewPrompt.getPaddingTop(), mTextViewPrompt.getPaddingRight(), paddingBottom);
+        updatePromptHeight();
         if (requestLayout) {
-            requestLayout();
+            requestLayout(PinPadDiagnostics.SOURCE_PROMPT);
+        }
+    }
+
+    /**
+     * Switches the prompt between a reserved height of mPromptLines lines and sizing to its text
+     */
+    private void applyPromptLines() {
+        if (mPromptLines > 0) {
+            mTextViewPrompt.setMaxLines(mPromptLines);
+            mTextViewPrompt.setEllipsize(TextUtils.TruncateAt.END);
+            mTextViewPrompt.setVisibility(VISIBLE);
+        } else {
+            mTextViewPrompt.setMaxLines(Integer.MAX_VALUE);
+            mTextViewPrompt.setEllipsize(null);
+            mTextViewPrompt.setVisibility(TextUtils.isEmpty(mPromptText) ? GONE : VISIBLE);
+        }
+        updatePromptHeight();
+    }
+
+    /**
+     * Sets the reserved prompt height from the current line height and padding. With an exact
+     * height the prompt TextView redraws on text changes instead of requesting a layout.
+     */
+    private void updatePromptHeight() {
+        ViewGroup.LayoutParams params = mTextViewPrompt.getLayoutParams();
+        if (params == null) {
+            return;
+        }
+        int height = ViewGroup.LayoutParams.WRAP_CONTENT;
+        if (mPromptLines > 0) {
+            height = mTextViewPrompt.getLineHeight() * mPromptLines
+                    + mTextViewPrompt.getCompoundPaddingTop() + mTextViewPrompt.getCompoundPaddingBottom();
+        }
+        if (params.height != height) {
+            params.height = height;
+            mTextViewPrompt.setLayoutParams(params);
         }
     }
 
     private void setImageButtonSize(int size, boolean requestLayout) {
-        mButtonBack.setImageIconSize(size);
-        mButtonDone.setImageIconSize(size);
+        for (PinPadButton button : mKeys) {
+            button.setImageIconSize(size);
+        }
         if (requestLayout) {
-            requestLayout();
+            requestLayout(PinPadDiagnostics.SOURCE_ICON_SIZE);
         }
     }
 
@@ -670,7 +2356,7 @@ public class PinPadView extends FrameLayout {
             }
         }
         if (requestLayout) {
-            requestLayout();
+            requestLayout(PinPadDiagnostics.SOURCE_TEXT_STYLE);
         }
     }
 }
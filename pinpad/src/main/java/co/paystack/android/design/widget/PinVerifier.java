@@ -0,0 +1,220 @@
+package co.paystack.android.design.widget;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * PinVerifier
+ * <p>
+ * Checks entered pins against a salted PBKDF2 hash stored on the device, e.g. for app-lock or
+ * offline PINs. Key stretching runs on a background thread and the hashes are compared in
+ * constant time; results are delivered on the UI thread.
+ * <p>
+ * PBKDF2 (HMAC-SHA256, pin encoded as UTF-8, 32 byte hash) is computed directly on a {@link Mac} that is reused
+ * across verifications, with the salt block of each verifier prepared once, so a verification
+ * only allocates its few working buffers instead of a key spec and key factory objects.
+ * <p>
+ * To enrol a pin, generate a salt with {@link #generateSalt()}, hash the pin with
+ * {@link #hash(char[], byte[], int)} off the UI thread and store the salt, hash and iteration
+ * count. Attach a verifier built from them with
+ * {@link PinPadView#setPinVerifier(PinVerifier, Callback)}.
+ */
+public final class PinVerifier {
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int SALT_LENGTH = 16;
+    /**
+     * One HMAC-SHA256 output, so PBKDF2 runs a single iteration chain; a longer hash would make
+     * every check pay for chains an attacker can skip
+     */
+    static final int HASH_LENGTH = 32;
+    public static final int DEFAULT_ITERATIONS = 10000;
+
+    /**
+     * Runs the key stretching for every verifier, one pin at a time; its thread goes away when idle
+     */
+    private static final Executor sExecutor;
+    /**
+     * Only used on the executor thread
+     */
+    private static Mac sMac;
+
+    static {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 10, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>());
+        executor.allowCoreThreadTimeOut(true);
+        sExecutor = executor;
+    }
+
+    /**
+     * Salt followed by room for the PBKDF2 block index; only used on the executor thread
+     */
+    private final byte[] mSaltBlock;
+    private final byte[] mHash;
+    private final int mIterations;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    public interface Callback {
+        /**
+         * Called on the UI thread once the pin has been checked
+         *
+         * @param matches - true if the pin matches the stored hash
+         */
+        void onResult(boolean matches);
+    }
+
+    /**
+     * @param salt       - salt the pin was hashed with
+     * @param hash       - stored hash of the pin, as returned by {@link #hash(char[], byte[], int)}
+     * @param iterations - iteration count the pin was hashed with
+     */
+    public PinVerifier(byte[] salt, byte[] hash, int iterations) {
+        if (salt == null || salt.length == 0 || hash == null || hash.length == 0) {
+            throw new IllegalArgumentException("salt and hash are required");
+        }
+        if (hash.length != HASH_LENGTH) {
+            throw new IllegalArgumentException("hash must be " + HASH_LENGTH + " bytes");
+        }
+        if (iterations <= 0) {
+            throw new IllegalArgumentException("iterations must be positive");
+        }
+        mSaltBlock = saltBlock(salt);
+        mHash = hash.clone();
+        mIterations = iterations;
+    }
+
+    public int getIterations() {
+        return mIterations;
+    }
+
+    /**
+     * Generates a random salt for enrolling a new pin
+     *
+     * @return byte[] salt
+     */
+    public static byte[] generateSalt() {
+        byte[] salt = new byte[SALT_LENGTH];
+        new SecureRandom().nextBytes(salt);
+        return salt;
+    }
+
+    /**
+     * Hashes a pin for storage. This blocks for as long as the iteration count makes it, so call
+     * it off the UI thread.
+     *
+     * @param pin        - pin to hash, left untouched; must not be empty
+     * @param salt       - salt from {@link #generateSalt()}
+     * @param iterations - iteration count, higher is slower to check and to attack
+     * @return byte[] hash of {@value #HASH_LENGTH} bytes
+     */
+    public static byte[] hash(char[] pin, byte[] salt, int iterations) {
+        if (pin.length == 0) {
+            throw new IllegalArgumentException("pin must not be empty");
+        }
+        try {
+            return derive(Mac.getInstance(MAC_ALGORITHM), pin, saltBlock(salt), iterations, HASH_LENGTH);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Checks a pin against the stored hash in the background
+     *
+     * @param pin      - pin to check; it is copied, so the caller can wipe it straight away
+     * @param callback - receives the result on the UI thread
+     */
+    public void verify(char[] pin, final Callback callback) {
+        final char[] copy = pin.clone();
+        sExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                boolean matches;
+                try {
+                    if (sMac == null) {
+                        sMac = Mac.getInstance(MAC_ALGORITHM);
+                    }
+                    byte[] hash = derive(sMac, copy, mSaltBlock, mIterations, HASH_LENGTH);
+                    matches = SecureChars.constantTimeEquals(hash, mHash);
+                    SecureChars.wipe(hash);
+                } catch (GeneralSecurityException | IllegalArgumentException e) {
+                    // IllegalArgumentException: an empty pin makes no key
+                    matches = false;
+                } finally {
+                    SecureChars.wipe(copy);
+                }
+                final boolean result = matches;
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.onResult(result);
+                    }
+                });
+            }
+        });
+    }
+
+    private static byte[] saltBlock(byte[] salt) {
+        return Arrays.copyOf(salt, salt.length + 4);
+    }
+
+    /**
+     * PBKDF2 as in RFC 8018, reusing the mac and the working buffers for every iteration
+     *
+     * @param saltBlock - salt followed by four bytes the block index is written into
+     */
+    private static byte[] derive(Mac mac, char[] pin, byte[] saltBlock, int iterations,
+                                 int length) throws GeneralSecurityException {
+        ByteBuffer encoded = UTF_8.encode(CharBuffer.wrap(pin));
+        byte[] key = new byte[encoded.remaining()];
+        encoded.get(key);
+        if (encoded.hasArray()) {
+            SecureChars.wipe(encoded.array());
+        }
+        try {
+            mac.init(new SecretKeySpec(key, MAC_ALGORITHM));
+        } finally {
+            SecureChars.wipe(key);
+        }
+
+        int macLength = mac.getMacLength();
+        byte[] result = new byte[length];
+        byte[] u = new byte[macLength];
+        byte[] t = new byte[macLength];
+        int index = saltBlock.length - 4;
+        for (int block = 1, offset = 0; offset < length; block++, offset += macLength) {
+            saltBlock[index] = (byte) (block >>> 24);
+            saltBlock[index + 1] = (byte) (block >>> 16);
+            saltBlock[index + 2] = (byte) (block >>> 8);
+            saltBlock[index + 3] = (byte) block;
+            mac.update(saltBlock);
+            mac.doFinal(u, 0);
+            System.arraycopy(u, 0, t, 0, macLength);
+            for (int i = 1; i < iterations; i++) {
+                mac.update(u);
+                mac.doFinal(u, 0);
+                for (int j = 0; j < macLength; j++) {
+                    t[j] ^= u[j];
+                }
+            }
+            System.arraycopy(t, 0, result, offset, Math.min(macLength, length - offset));
+        }
+        SecureChars.wipe(u);
+        SecureChars.wipe(t);
+        return result;
+    }
+}
@@ -0,0 +1,52 @@
+package co.paystack.android.design.widget;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.text.PrecomputedText;
+import android.text.TextUtils;
+import android.util.LruCache;
+import android.widget.TextView;
+
+/**
+ * PromptTextCache
+ * <p>
+ * Keeps the measured text of recurring prompt messages, e.g. "Wrong PIN" or the stage prompts,
+ * so showing one again skips text measurement. Only prompts set with the recurring hint are
+ * cached, so a countdown does not evict them. Entries are measured for the prompt's text
+ * parameters, size included, and measured again when those change. Uses {@link PrecomputedText}
+ * on API 28 and above; on older releases the text is passed through unchanged.
+ */
+class PromptTextCache {
+    private static final int MAX_ENTRIES = 16;
+
+    private LruCache<String, PrecomputedText> mCache;
+
+    /**
+     * Gets the text to set on the prompt
+     *
+     * @param textView - prompt textview, whose text parameters the measured text must match
+     * @param text     - prompt text
+     * @return measured text if available, otherwise the text itself
+     */
+    CharSequence get(TextView textView, String text) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.P || TextUtils.isEmpty(text)) {
+            return text;
+        }
+        return getPrecomputed(textView, text);
+    }
+
+    @TargetApi(Build.VERSION_CODES.P)
+    private CharSequence getPrecomputed(TextView textView, String text) {
+        if (mCache == null) {
+            mCache = new LruCache<>(MAX_ENTRIES);
+        }
+        PrecomputedText.Params params = textView.getTextMetricsParams();
+        PrecomputedText precomputed = mCache.get(text);
+        if (precomputed == null || !precomputed.getParams().equals(params)) {
+            // first time shown, or the prompt style changed since
+            precomputed = PrecomputedText.create(text, params);
+            mCache.put(text, precomputed);
+        }
+        return precomputed;
+    }
+}
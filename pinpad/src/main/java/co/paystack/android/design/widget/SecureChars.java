@@ -0,0 +1,72 @@
+package co.paystack.android.design.widget;
+
+import java.util.Arrays;
+
+/**
+ * Helpers for handling PIN characters and hashes without leaking them through timing or leftover memory
+ */
+final class SecureChars {
+
+    private SecureChars() {
+    }
+
+    /**
+     * Compares two buffers in time that only depends on their lengths
+     *
+     * @return true if both buffers hold the same characters
+     */
+    static boolean constantTimeEquals(char[] a, char[] b) {
+        if (a.length != b.length) {
+            return false;
+        }
+        int result = 0;
+        for (int i = 0; i < a.length; i++) {
+            result |= a[i] ^ b[i];
+        }
+        return result == 0;
+    }
+
+    /**
+     * Compares two byte buffers in time that only depends on their lengths
+     *
+     * @return true if both buffers hold the same bytes
+     */
+    static boolean constantTimeEquals(byte[] a, byte[] b) {
+        if (a.length != b.length) {
+            return false;
+        }
+        int result = 0;
+        for (int i = 0; i < a.length; i++) {
+            result |= a[i] ^ b[i];
+        }
+        return result == 0;
+    }
+
+    /**
+     * Overwrites the buffer
+     */
+    static void wipe(byte[] buffer) {
+        if (buffer != null) {
+            Arrays.fill(buffer, (byte) 0);
+        }
+    }
+
+    /**
+     * Overwrites the buffer
+     */
+    static void wipe(char[] buffer) {
+        if (buffer != null) {
+            Arrays.fill(buffer, '\0');
+        }
+    }
+
+    /**
+     * Overwrites the characters held by the builder before emptying it
+     */
+    static void wipe(StringBuilder builder) {
+        for (int i = 0; i < builder.length(); i++) {
+            builder.setCharAt(i, '\0');
+        }
+        builder.setLength(0);
+    }
+}
@@ -0,0 +1,198 @@
+package co.paystack.android.design.widget;
+
+import android.graphics.Paint;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.text.TextUtils;
+
+/**
+ * TextSizeFitter
+ * <p>
+ * Finds the largest key label and prompt text sizes that fit the measured pinpad. The search runs
+ * once per distinct key cell size and the result is shared by every key, so re-measures at a
+ * size that has been seen before cost a single lookup.
+ */
+class TextSizeFitter {
+    private static final String DIGITS = "0123456789";
+    /**
+     * Widest alphabet label on a phone keypad
+     */
+    private static final String WIDEST_ALPHABET = "WXYZ";
+
+    /**
+     * Distinct cell sizes remembered; a pinpad only sees a few, e.g. per orientation
+     */
+    private static final int CACHE_SIZE = 8;
+
+    private final long[] mCacheKeys = new long[CACHE_SIZE];
+    private final float[][] mCacheSizes = new float[CACHE_SIZE][];
+    private int mCacheCount;
+    private int mCacheNext;
+    private final TextPaint mPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint.FontMetrics mFontMetrics = new Paint.FontMetrics();
+    private final float mMinTextSize;
+    private final float mAlphabetGap;
+
+    private float mMaxNumericSize;
+    private float mMaxAlphabetSize;
+
+    private CharSequence mPromptText;
+    private int mPromptWidth;
+    private int mPromptLines;
+    private float mMaxPromptSize;
+    private float mPromptSize;
+
+    /**
+     * @param minTextSize - smallest size the search will go to, in pixels
+     * @param alphabetGap - space between the numeric and alphabet text, in pixels
+     */
+    TextSizeFitter(float minTextSize, float alphabetGap) {
+        mMinTextSize = minTextSize;
+        mAlphabetGap = alphabetGap;
+    }
+
+    /**
+     * Sets the largest sizes the key labels may grow to. Cached sizes are dropped if they change.
+     */
+    void setMaxKeySizes(float numericSize, float alphabetSize) {
+        if (numericSize != mMaxNumericSize || alphabetSize != mMaxAlphabetSize) {
+            mMaxNumericSize = numericSize;
+            mMaxAlphabetSize = alphabetSize;
+            clearKeySizes();
+        }
+    }
+
+    /**
+     * Drops every cached size, e.g. after the typeface changed
+     */
+    void clear() {
+        clearKeySizes();
+        mPromptText = null;
+    }
+
+    /**
+     * Gets the numeric and alphabet sizes for a key cell
+     *
+     * @param template - paint of a key label, for its typeface
+     * @param width    - width available to the key content
+     * @param height   - height available to the key content
+     * @param alphabet - whether keys show alphabet text next to the digit
+     * @return shared {numeric, alphabet} sizes in pixels, must not be modified
+     */
+    float[] fitKey(TextPaint template, int width, int height, boolean alphabet) {
+        long key = ((long) width << 32) | ((long) height << 1) | (alphabet ? 1 : 0);
+        float[] sizes = getCachedSizes(key);
+        if (sizes == null) {
+            mPaint.set(template);
+            float ratio = mMaxNumericSize > 0 ? mMaxAlphabetSize / mMaxNumericSize : 0;
+            int low = (int) Math.min(mMinTextSize, mMaxNumericSize);
+            int high = (int) mMaxNumericSize;
+            while (low < high) {
+                int mid = (low + high + 1) >>> 1;
+                if (keyFits(mid, mid * ratio, width, height, alphabet)) {
+                    low = mid;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            sizes = new float[]{low, low * ratio};
+            putCachedSizes(key, sizes);
+        }
+        return sizes;
+    }
+
+    /**
+     * Gets the largest prompt size at which the text fits in the given number of lines. The last
+     * result is kept, so re-measuring the same prompt at the same width does not lay it out again.
+     *
+     * @param template - paint of the prompt, for its typeface
+     * @param text     - prompt text
+     * @param width    - width available to the text
+     * @param lines    - number of lines the text may take
+     * @param maxSize  - largest size the prompt may grow to
+     * @return size in pixels
+     */
+    @SuppressWarnings("deprecation")
+    float fitPrompt(TextPaint template, CharSequence text, int width, int lines, float maxSize) {
+        if (TextUtils.isEmpty(text) || width <= 0) {
+            return maxSize;
+        }
+        if (width == mPromptWidth && lines == mPromptLines && maxSize == mMaxPromptSize
+                && TextUtils.equals(text, mPromptText)) {
+            return mPromptSize;
+        }
+        mPaint.set(template);
+        int low = (int) Math.min(mMinTextSize, maxSize);
+        int high = (int) maxSize;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            mPaint.setTextSize(mid);
+            StaticLayout layout = new StaticLayout(text, mPaint, width,
+                    Layout.Alignment.ALIGN_NORMAL, 1f, 0f, false);
+            if (layout.getLineCount() <= lines) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        mPromptText = text.toString();
+        mPromptWidth = width;
+        mPromptLines = lines;
+        mMaxPromptSize = maxSize;
+        mPromptSize = low;
+        return low;
+    }
+
+    private float[] getCachedSizes(long key) {
+        for (int i = 0; i < mCacheCount; i++) {
+            if (mCacheKeys[i] == key) {
+                return mCacheSizes[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Stores the sizes, replacing the oldest entry once the cache is full
+     */
+    private void putCachedSizes(long key, float[] sizes) {
+        mCacheKeys[mCacheNext] = key;
+        mCacheSizes[mCacheNext] = sizes;
+        mCacheNext = (mCacheNext + 1) % CACHE_SIZE;
+        mCacheCount = Math.min(mCacheCount + 1, CACHE_SIZE);
+    }
+
+    private void clearKeySizes() {
+        for (int i = 0; i < CACHE_SIZE; i++) {
+            mCacheSizes[i] = null;
+        }
+        mCacheCount = 0;
+        mCacheNext = 0;
+    }
+
+    private boolean keyFits(float numericSize, float alphabetSize, int width, int height,
+                            boolean alphabet) {
+        mPaint.setTextSize(numericSize);
+        float numericWidth = 0;
+        for (int i = 0; i < DIGITS.length(); i++) {
+            numericWidth = Math.max(numericWidth, mPaint.measureText(DIGITS, i, i + 1));
+        }
+        mPaint.getFontMetrics(mFontMetrics);
+        float numericHeight = mFontMetrics.descent - mFontMetrics.ascent;
+        if (numericWidth > width || numericHeight > height) {
+            return false;
+        }
+        if (!alphabet || alphabetSize <= 0) {
+            return true;
+        }
+
+        // the alphabet text sits above and to the end of the centered digit
+        mPaint.setTextSize(alphabetSize);
+        float alphabetWidth = mPaint.measureText(WIDEST_ALPHABET);
+        mPaint.getFontMetrics(mFontMetrics);
+        float alphabetHeight = mFontMetrics.descent - mFontMetrics.ascent;
+        return numericWidth / 2 + mAlphabetGap + alphabetWidth <= width / 2f
+                && numericHeight / 2 + alphabetHeight <= height / 2f;
+    }
+}
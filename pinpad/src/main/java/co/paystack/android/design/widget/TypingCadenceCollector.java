@@ -0,0 +1,134 @@
+package co.paystack.android.design.widget;
+
+/**
+ * TypingCadenceCollector
+ * <p>
+ * Opt-in collector for the timing profile of a PIN entry: intervals between key presses,
+ * backspace count and time to submit. The digits themselves are never seen by the collector.
+ * <p>
+ * Intervals are stored as nanosecond deltas in a preallocated ring buffer, so a key press costs
+ * one clock read and one array store. The only allocation happens at submit, when the buffer is
+ * folded into a {@link CadenceSummary}.
+ * <p>
+ * Usage:
+ * <pre>
+ * TypingCadenceCollector collector = new TypingCadenceCollector();
+ * collector.setOnSummaryListener(new TypingCadenceCollector.OnSummaryListener() {
+ *     public void onSummary(CadenceSummary summary) {
+ *         // report summary
+ *     }
+ * });
+ * pinPadView.setTypingCadenceCollector(collector);
+ * </pre>
+ */
+public class TypingCadenceCollector {
+    private static final int DEFAULT_CAPACITY = 32;
+
+    static final int KEY_DIGIT = 0;
+    static final int KEY_BACKSPACE = 1;
+
+    private final long[] mIntervals;
+    private int mHead;
+    private int mIntervalCount;
+    private long mFirstKeyTime;
+    private long mLastKeyTime;
+    private int mDigitCount;
+    private int mBackspaceCount;
+
+    private OnSummaryListener mSummaryListener;
+
+    public interface OnSummaryListener {
+        /**
+         * Called on the UI thread when a complete PIN is submitted
+         *
+         * @param summary - timing summary for the entry
+         */
+        void onSummary(CadenceSummary summary);
+    }
+
+    public TypingCadenceCollector() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity - number of most recent intervals kept for the histogram
+     */
+    public TypingCadenceCollector(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        mIntervals = new long[capacity];
+    }
+
+    /**
+     * Sets the listener that receives a summary every time a complete PIN is submitted
+     *
+     * @param listener - {@link OnSummaryListener} listener
+     */
+    public void setOnSummaryListener(OnSummaryListener listener) {
+        mSummaryListener = listener;
+    }
+
+    /**
+     * Drops everything recorded for the current entry
+     */
+    public void reset() {
+        mHead = 0;
+        mIntervalCount = 0;
+        mFirstKeyTime = 0;
+        mLastKeyTime = 0;
+        mDigitCount = 0;
+        mBackspaceCount = 0;
+    }
+
+    /**
+     * Records a key press
+     *
+     * @param key - KEY_DIGIT or KEY_BACKSPACE
+     */
+    void onKey(int key) {
+        long now = System.nanoTime();
+        if (mDigitCount == 0 && mBackspaceCount == 0) {
+            mFirstKeyTime = now;
+        } else {
+            mIntervals[mHead] = now - mLastKeyTime;
+            mHead = (mHead + 1) % mIntervals.length;
+            mIntervalCount++;
+        }
+        mLastKeyTime = now;
+        if (key == KEY_BACKSPACE) {
+            mBackspaceCount++;
+        } else {
+            mDigitCount++;
+        }
+    }
+
+    /**
+     * Folds the recorded entry into a summary, hands it to the listener and starts a new entry
+     */
+    void onSubmit() {
+        long now = System.nanoTime();
+        if (mSummaryListener != null) {
+            mSummaryListener.onSummary(summarize(now));
+        }
+        reset();
+    }
+
+    private CadenceSummary summarize(long submitTime) {
+        int[] histogram = new int[CadenceSummary.BUCKET_UPPER_BOUNDS_MS.length + 1];
+        int kept = Math.min(mIntervalCount, mIntervals.length);
+        long min = kept > 0 ? Long.MAX_VALUE : 0;
+        long max = 0;
+        long total = 0;
+        for (int i = 0; i < kept; i++) {
+            long interval = mIntervals[i];
+            min = Math.min(min, interval);
+            max = Math.max(max, interval);
+            total += interval;
+            histogram[CadenceSummary.bucketFor(interval)]++;
+        }
+        long timeToSubmit = mDigitCount + mBackspaceCount > 0 ? submitTime - mFirstKeyTime : 0;
+        return new CadenceSummary(histogram, mIntervalCount, kept > 0 ? total / kept : 0, min, max,
+                mDigitCount, mBackspaceCount, timeToSubmit);
+    }
+}
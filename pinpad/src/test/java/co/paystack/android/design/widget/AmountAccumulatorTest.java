@@ -0,0 +1,112 @@
+package co.paystack.android.design.widget;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks digit entry, the max value and formatting of {@link AmountAccumulator}.
+ */
+public class AmountAccumulatorTest {
+    private final AmountAccumulator mAmount = new AmountAccumulator();
+
+    @Test
+    public void appendDigit_buildsMinorUnits() {
+        append(1, 2, 3, 4, 5, 6, 7);
+        assertEquals(1234567, mAmount.getValue());
+        assertEquals("12,345.67", format());
+    }
+
+    @Test
+    public void format_padsSmallAmounts() {
+        assertEquals("0.00", format());
+        append(5);
+        assertEquals("0.05", format());
+    }
+
+    @Test
+    public void format_withoutDecimalsOrGrouping() {
+        mAmount.setDecimals(0);
+        mAmount.setSeparators(',', (char) 0);
+        append(1, 2, 3, 4);
+        assertEquals("1234", format());
+    }
+
+    @Test
+    public void appendDigit_rejectsOverflow() {
+        append(9, 2, 2, 3, 3, 7, 2, 0, 3, 6, 8, 5, 4, 7, 7, 5, 8, 0, 7);
+        assertEquals(Long.MAX_VALUE, mAmount.getValue());
+        assertFalse(mAmount.appendDigit(0));
+        assertFalse(mAmount.appendDoubleZero());
+        assertEquals(Long.MAX_VALUE, mAmount.getValue());
+    }
+
+    @Test
+    public void appendDigit_rejectsDigitsOverMax() {
+        mAmount.setMaxValue(1000);
+        append(9, 9);
+        assertTrue(mAmount.appendDigit(9));
+        assertFalse(mAmount.appendDigit(0));
+        assertEquals(999, mAmount.getValue());
+    }
+
+    @Test
+    public void appendDoubleZero_upToMax() {
+        mAmount.setMaxValue(10000);
+        append(1);
+        assertTrue(mAmount.appendDoubleZero());
+        assertEquals(100, mAmount.getValue());
+        assertTrue(mAmount.appendDoubleZero());
+        assertEquals(10000, mAmount.getValue());
+        assertFalse(mAmount.appendDoubleZero());
+        assertEquals(10000, mAmount.getValue());
+    }
+
+    @Test
+    public void appendDoubleZero_onZeroStaysZero() {
+        assertTrue(mAmount.appendDoubleZero());
+        assertEquals(0, mAmount.getValue());
+    }
+
+    @Test
+    public void removeDigit_dropsLastDigit() {
+        append(4, 5, 6);
+        assertTrue(mAmount.removeDigit());
+        assertEquals(45, mAmount.getValue());
+        assertTrue(mAmount.removeDigit());
+        assertTrue(mAmount.removeDigit());
+        assertFalse(mAmount.removeDigit());
+        assertEquals(0, mAmount.getValue());
+    }
+
+    @Test
+    public void setMaxValue_keepsAmountUnderMax() {
+        append(5, 0);
+        mAmount.setMaxValue(50);
+        assertEquals(50, mAmount.getValue());
+        assertEquals(50, mAmount.getMaxValue());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void setMaxValue_belowAmountThrows() {
+        append(5, 0);
+        mAmount.setMaxValue(49);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setMaxValue_rejectsZero() {
+        mAmount.setMaxValue(0);
+    }
+
+    private void append(int... digits) {
+        for (int digit : digits) {
+            assertTrue(mAmount.appendDigit(digit));
+        }
+    }
+
+    private String format() {
+        return new String(mAmount.getBuffer(), 0, mAmount.format());
+    }
+}
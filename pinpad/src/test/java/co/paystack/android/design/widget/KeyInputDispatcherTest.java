@@ -0,0 +1,256 @@
+package co.paystack.android.design.widget;
+
+import android.app.Activity;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Checks the commit order of {@link KeyInputDispatcher}: press order across pointers, cancels
+ * releasing the presses queued behind them, held keys no longer holding back later taps and the
+ * pending queue overflowing.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class KeyInputDispatcherTest {
+    private KeyInputDispatcher mDispatcher;
+    private final List<PinPadButton> mCommitted = new ArrayList<>();
+    private Activity mActivity;
+
+    @Before
+    public void setUp() {
+        mActivity = Robolectric.buildActivity(Activity.class).setup().get();
+        mDispatcher = new KeyInputDispatcher();
+    }
+
+    @Test
+    public void inOrderLifts_commitOnLift() {
+        PinPadButton a = key();
+        PinPadButton b = key();
+
+        down(a, 0);
+        up(a, 0);
+        assertCommitted(a);
+
+        down(b, 0);
+        up(b, 0);
+        assertCommitted(a, b);
+    }
+
+    @Test
+    public void outOfOrderLifts_commitInPressOrder() {
+        PinPadButton a = key();
+        PinPadButton b = key();
+
+        down(a, 0);
+        down(b, 1);
+        up(b, 1);
+        // b waits for a, which is still down
+        assertCommitted();
+
+        up(a, 0);
+        assertCommitted(a, b);
+    }
+
+    @Test
+    public void cancel_unblocksLaterPress() {
+        PinPadButton a = key();
+        PinPadButton b = key();
+
+        down(a, 0);
+        down(b, 1);
+        up(b, 1);
+        assertCommitted();
+
+        mDispatcher.onCancel(a, SystemClock.uptimeMillis());
+        assertCommitted(b);
+
+        // a late lift of the cancelled pointer commits nothing
+        up(a, 0);
+        assertCommitted(b);
+    }
+
+    @Test
+    public void cancel_keepsReleasedPressesOfTheSameKey() {
+        PinPadButton a = key();
+        PinPadButton b = key();
+
+        down(b, 0);
+        down(a, 1);
+        up(a, 1);
+        down(a, 2);
+
+        // only a's unreleased press goes; its released one still waits for b
+        mDispatcher.onCancel(a, SystemClock.uptimeMillis());
+        assertCommitted();
+
+        up(b, 0);
+        assertCommitted(b, a);
+    }
+
+    @Test
+    public void overflow_dropsOldestPress() {
+        PinPadButton stuck = key();
+        down(stuck, 0);
+
+        PinPadButton[] keys = new PinPadButton[10];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = key();
+            down(keys[i], i + 1);
+        }
+
+        // the stuck press was dropped to make room, so nothing waits on it any more
+        up(keys[0], 1);
+        assertCommitted(keys[0]);
+
+        up(stuck, 0);
+        assertCommitted(keys[0]);
+
+        for (int i = 1; i < keys.length; i++) {
+            up(keys[i], i + 1);
+        }
+        assertCommitted(keys);
+    }
+
+    @Test
+    public void reset_dropsPendingPresses() {
+        PinPadButton a = key();
+        PinPadButton b = key();
+
+        down(a, 0);
+        down(b, 1);
+        up(b, 1);
+        mDispatcher.reset();
+
+        up(a, 0);
+        assertCommitted();
+    }
+
+    @Test
+    public void liftFromCommitCallback_isCommittedAfterCurrentKey() {
+        final PinPadButton a = key();
+        final PinPadButton b = key();
+        a.setButtonClickListener(new PinPadButton.OnButtonClickListener() {
+            @Override
+            public void onButtonClick(PinPadButton button) {
+                mCommitted.add(button);
+                up(b, 1);
+            }
+        });
+
+        down(a, 0);
+        down(b, 1);
+        up(a, 0);
+        assertCommitted(a, b);
+    }
+
+    @Test
+    public void heldKey_doesNotHoldBackFastTaps() {
+        PinPadButton held = key();
+        PinPadButton a = key();
+        PinPadButton b = key();
+
+        down(held, 0);
+        advance(KeyInputDispatcher.HOLD_THRESHOLD_MS);
+        down(a, 1);
+        up(a, 1);
+        assertCommitted(a);
+
+        advance(40);
+        down(b, 1);
+        up(b, 1);
+        assertCommitted(a, b);
+
+        // the resting finger is committed when it finally lifts
+        advance(500);
+        up(held, 0);
+        assertCommitted(a, b, held);
+    }
+
+    @Test
+    public void heldKey_releasesWaitingTapOnceHeldPastThreshold() {
+        PinPadButton held = key();
+        PinPadButton a = key();
+
+        down(held, 0);
+        advance(20);
+        down(a, 1);
+        advance(40);
+        up(a, 1);
+        // still within a rolled tap, so a waits for held
+        assertCommitted();
+
+        advance(KeyInputDispatcher.HOLD_THRESHOLD_MS - 60 - 1);
+        assertCommitted();
+        advance(1);
+        assertCommitted(a);
+
+        up(held, 0);
+        assertCommitted(a, held);
+    }
+
+    @Test
+    public void heldKey_keepsPressOrderBehindTheNextUnreleasedTap() {
+        PinPadButton held = key();
+        PinPadButton a = key();
+        PinPadButton b = key();
+
+        down(held, 0);
+        advance(KeyInputDispatcher.HOLD_THRESHOLD_MS);
+        down(a, 1);
+        down(b, 2);
+        up(b, 2);
+        // held is skipped, but b still waits for a
+        assertCommitted();
+
+        up(a, 1);
+        assertCommitted(a, b);
+    }
+
+    private void down(PinPadButton button, int pointerId) {
+        mDispatcher.onPointerDown(button, pointerId, SystemClock.uptimeMillis());
+    }
+
+    private void up(PinPadButton button, int pointerId) {
+        mDispatcher.onPointerUp(button, pointerId, SystemClock.uptimeMillis());
+    }
+
+    /**
+     * Moves the clock on, running the dispatcher's held key timeout when it falls due
+     */
+    private void advance(long millis) {
+        shadowOf(Looper.getMainLooper()).idleFor(millis, TimeUnit.MILLISECONDS);
+    }
+
+    private PinPadButton key() {
+        PinPadButton button = new PinPadButton(mActivity);
+        button.setButtonClickListener(new PinPadButton.OnButtonClickListener() {
+            @Override
+            public void onButtonClick(PinPadButton button) {
+                mCommitted.add(button);
+            }
+        });
+        return button;
+    }
+
+    private void assertCommitted(PinPadButton... expected) {
+        List<PinPadButton> expectedList = expected.length == 0
+                ? Collections.<PinPadButton>emptyList() : Arrays.asList(expected);
+        assertEquals(expectedList, mCommitted);
+    }
+}
@@ -0,0 +1,89 @@
+package co.paystack.android.design.widget;
+
+import android.app.Activity;
+import android.graphics.Color;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the layers drawn by the lite render profile: the keys and indicators carry no drawables
+ * of their own, so nothing is drawn over the pinpad background until a key is pressed.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class LiteRenderingTest {
+    private PinPadView mPinPad;
+
+    @Before
+    public void setUp() {
+        Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        mPinPad = new PinPadView(activity);
+        activity.setContentView(mPinPad);
+        mPinPad.setRenderProfile(PinPadView.RENDER_PROFILE_LITE);
+    }
+
+    @Test
+    public void lite_keysAndIndicatorsHaveNoDrawables() {
+        assertTrue(mPinPad.isLiteRendering());
+        for (PinPadButton key : keys()) {
+            assertNull(key.getBackground());
+            assertNull(key.getForeground());
+            View content = key.getChildAt(0);
+            assertNull(content.getBackground());
+            assertNull(((ForegroundRelativeLayout) content).getForeground());
+        }
+        ViewGroup indicators = (ViewGroup) mPinPad.findViewById(R.id.pstck_pinpad__indicator_layout);
+        assertTrue(indicators.getChildCount() > 0);
+        for (int i = 0; i < indicators.getChildCount(); i++) {
+            assertNull(indicators.getChildAt(i).getBackground());
+        }
+    }
+
+    @Test
+    public void lite_keyTakesThePressedState() {
+        PinPadButton key = mPinPad.getButtonForDigit(5);
+        assertFalse(key.getChildAt(0).isClickable());
+        key.setPressed(true);
+        assertTrue(key.isPressed());
+    }
+
+    @Test
+    public void setButtonTextColor_updatesPressedColor() {
+        mPinPad.setButtonTextColor(Color.RED);
+        assertEquals(Color.argb(0x33, 0xFF, 0, 0), mPinPad.getLitePressedColor());
+    }
+
+    @Test
+    public void full_restoresKeyRipples() {
+        mPinPad.setRenderProfile(PinPadView.RENDER_PROFILE_FULL);
+        assertFalse(mPinPad.isLiteRendering());
+        for (PinPadButton key : keys()) {
+            View content = key.getChildAt(0);
+            assertTrue(content.isClickable());
+            assertNotNull(((ForegroundRelativeLayout) content).getForeground());
+        }
+    }
+
+    private PinPadButton[] keys() {
+        PinPadButton[] keys = new PinPadButton[12];
+        for (int digit = 0; digit <= 9; digit++) {
+            keys[digit] = mPinPad.getButtonForDigit(digit);
+        }
+        keys[10] = mPinPad.getBackButton();
+        keys[11] = mPinPad.getDoneButton();
+        return keys;
+    }
+}
@@ -0,0 +1,142 @@
+package co.paystack.android.design.widget;
+
+import android.app.Activity;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the {@link PinChangeQueue} FIFO and that {@link PinPadView} delivers pin changes made
+ * from inside its listeners after the change being delivered, in order and without nesting.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class PinChangeQueueTest {
+    private PinPadView mPinPad;
+    private final List<String> mEvents = new ArrayList<>();
+    private int mDepth;
+    private int mMaxDepth;
+
+    @Before
+    public void setUp() {
+        Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        mPinPad = new PinPadView(activity);
+        mPinPad.setPlaceDigitsRandomly(false);
+        mPinPad.setPinLength(4);
+    }
+
+    @Test
+    public void queue_deliversInOrderAcrossGrowth() {
+        PinChangeQueue queue = new PinChangeQueue();
+        // wrap the head around before growing past the initial capacity
+        queue.add(PinPadView.OnPinEventListener.TYPE_DIGIT_ADDED, 1, false, "", "1");
+        queue.add(PinPadView.OnPinEventListener.TYPE_DIGIT_ADDED, 2, false, "1", "12");
+        assertTrue(queue.poll());
+        assertTrue(queue.poll());
+        for (int i = 0; i < 9; i++) {
+            queue.add(PinPadView.OnPinEventListener.TYPE_DIGIT_ADDED, i, i == 8, null, "pin" + i);
+        }
+        for (int i = 0; i < 9; i++) {
+            assertTrue(queue.poll());
+            assertEquals(i, queue.getLength());
+            assertEquals(i == 8, queue.isSubmit());
+            assertEquals("pin" + i, queue.getNewPin());
+        }
+        assertTrue(queue.isEmpty());
+        assertFalse(queue.poll());
+    }
+
+    @Test
+    public void queue_releasesDeliveredPins() {
+        PinChangeQueue queue = new PinChangeQueue();
+        queue.add(PinPadView.OnPinEventListener.TYPE_CLEARED, 0, false, "12", "");
+        assertTrue(queue.poll());
+        assertEquals(PinPadView.OnPinEventListener.TYPE_CLEARED, queue.getType());
+        assertEquals("12", queue.getOldPin());
+
+        queue.releaseCurrent();
+        assertNull(queue.getOldPin());
+        assertNull(queue.getNewPin());
+    }
+
+    @Test
+    public void clearFromChangeListener_isDeliveredAfterCurrentChange() {
+        mPinPad.setOnPinChangedListener(new PinPadView.OnPinChangedListener() {
+            @Override
+            public void onPinChanged(String oldPin, String newPin) {
+                enter(oldPin + ">" + newPin);
+                if (newPin.length() == 2) {
+                    mPinPad.clear();
+                    mEvents.add("clear returned");
+                }
+                exit();
+            }
+        });
+
+        press(1, 2, 3);
+        assertEquals(Arrays.asList(">1", "1>12", "clear returned", "12>", ">3"), mEvents);
+        assertEquals(1, mMaxDepth);
+        assertEquals(1, mPinPad.getEnteredLength());
+    }
+
+    @Test
+    public void clearFromSubmitListener_followsTheSubmit() {
+        mPinPad.setAutoSubmit(true);
+        mPinPad.addOnPinEventListener(new PinPadView.OnPinEventListener() {
+            @Override
+            public void onPinEvent(int type, int length, long timestampNanos) {
+                enter(type + "/" + length);
+                exit();
+            }
+        }, false);
+        mPinPad.setOnSubmitListener(new PinPadView.OnSubmitListener() {
+            @Override
+            public void onCompleted(String pin) {
+                enter("completed " + pin);
+                mPinPad.clear();
+                exit();
+            }
+
+            @Override
+            public void onIncompleteSubmit(String pin) {
+            }
+        });
+
+        press(4, 3, 2, 1);
+        int added = PinPadView.OnPinEventListener.TYPE_DIGIT_ADDED;
+        assertEquals(Arrays.asList(added + "/1", added + "/2", added + "/3", added + "/4",
+                PinPadView.OnPinEventListener.TYPE_SUBMITTED + "/4", "completed 4321",
+                PinPadView.OnPinEventListener.TYPE_CLEARED + "/0"), mEvents);
+        assertEquals(1, mMaxDepth);
+        assertEquals(0, mPinPad.getEnteredLength());
+    }
+
+    private void enter(String event) {
+        mEvents.add(event);
+        mDepth++;
+        mMaxDepth = Math.max(mMaxDepth, mDepth);
+    }
+
+    private void exit() {
+        mDepth--;
+    }
+
+    private void press(int... digits) {
+        for (int digit : digits) {
+            mPinPad.getButtonForDigit(digit).performButtonClick();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package co.paystack.android.design.widget;
+
+import android.app.Activity;
+import android.util.AttributeSet;
+import android.view.InflateException;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks that out of range XML attributes fail inflation with a message naming the attribute.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class PinPadAttributesTest {
+    private Activity mActivity;
+
+    @Before
+    public void setUp() {
+        mActivity = Robolectric.buildActivity(Activity.class).setup().get();
+    }
+
+    @Test
+    public void amountMax_isReadFromXml() {
+        PinPadView pinPad = new PinPadView(mActivity, amountAttributes("500"));
+        assertEquals(500, pinPad.getMaxAmount());
+    }
+
+    @Test
+    public void amountMax_zeroFailsInflation() {
+        assertRejected("0");
+    }
+
+    @Test
+    public void amountMax_negativeFailsInflation() {
+        assertRejected("-100");
+    }
+
+    private void assertRejected(String maxAmount) {
+        try {
+            new PinPadView(mActivity, amountAttributes(maxAmount));
+            fail("amount_max " + maxAmount + " was accepted");
+        } catch (InflateException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("amount_max"));
+        }
+    }
+
+    private AttributeSet amountAttributes(String maxAmount) {
+        return Robolectric.buildAttributeSet()
+                .addAttribute(R.attr.entry_mode, "amount")
+                .addAttribute(R.attr.amount_max, maxAmount)
+                .build();
+    }
+}
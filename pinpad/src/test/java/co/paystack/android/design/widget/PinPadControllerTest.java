@@ -0,0 +1,157 @@
+package co.paystack.android.design.widget;
+
+import android.app.Activity;
+import android.os.Looper;
+import android.widget.TextView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Checks that {@link PinPadController} merges commands until the UI thread runs them, keeps the
+ * last value of each, and applies them in the order they were last issued.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class PinPadControllerTest {
+    private PinPadView mPinPad;
+    private PinPadController mController;
+    private TextView mPrompt;
+    private final List<String> mEvents = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        mPinPad = new PinPadView(activity);
+        mPinPad.setPlaceDigitsRandomly(false);
+        mPinPad.setAutoSubmit(false);
+        mPinPad.setPinLength(4);
+        mPinPad.setPromptText("Enter PIN");
+        mController = mPinPad.getController();
+        mPrompt = (TextView) mPinPad.findViewById(R.id.pstck_pinpad__prompt);
+        mPinPad.addOnPinEventListener(new PinPadView.OnPinEventListener() {
+            @Override
+            public void onPinEvent(int type, int length, long timestampNanos) {
+                if (type == TYPE_CLEARED) {
+                    mEvents.add("cleared under " + prompt());
+                }
+            }
+        }, false);
+    }
+
+    @Test
+    public void commands_waitForTheUiThread() {
+        mController.setPinLength(6);
+        mController.setPromptText("Enter OTP");
+        mController.setLocked(true);
+        assertEquals(4, mPinPad.getPinLength());
+        assertEquals("Enter PIN", prompt());
+        assertFalse(mPinPad.isLocked());
+
+        idle();
+        assertEquals(6, mPinPad.getPinLength());
+        assertEquals("Enter OTP", prompt());
+        assertTrue(mPinPad.isLocked());
+    }
+
+    @Test
+    public void commands_keepLastValue() {
+        mController.setPinLength(5);
+        mController.setPinLength(6);
+        mController.setPromptText("first");
+        mController.setPromptText("second");
+        mController.setLocked(true);
+        mController.setLocked(false);
+        idle();
+
+        assertEquals(6, mPinPad.getPinLength());
+        assertEquals("second", prompt());
+        assertFalse(mPinPad.isLocked());
+    }
+
+    @Test
+    public void repeatedClear_isAppliedOnce() {
+        press(1, 2);
+        mController.clear();
+        mController.clear();
+        idle();
+
+        assertEquals(0, mPinPad.getEnteredLength());
+        assertEquals(Arrays.asList("cleared under Enter PIN"), mEvents);
+    }
+
+    @Test
+    public void commands_applyInIssueOrder() {
+        press(1, 2);
+        mController.setPromptText("Try again");
+        mController.clear();
+        idle();
+        assertEquals(Arrays.asList("cleared under Try again"), mEvents);
+
+        press(3);
+        mController.clear();
+        mController.setPromptText("Enter PIN");
+        idle();
+        assertEquals(Arrays.asList("cleared under Try again", "cleared under Try again"), mEvents);
+        assertEquals("Enter PIN", prompt());
+    }
+
+    @Test
+    public void reissuedCommand_movesToItsLastPosition() {
+        press(1);
+        mController.setPromptText("first");
+        mController.clear();
+        mController.setPromptText("second");
+        idle();
+
+        // the prompt was last issued after the clear, so the clear sees the old prompt
+        assertEquals(Arrays.asList("cleared under Enter PIN"), mEvents);
+        assertEquals("second", prompt());
+    }
+
+    @Test
+    public void commands_fromBackgroundThread() throws InterruptedException {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 1; i <= 8; i++) {
+                    mController.setPinLength(i);
+                }
+                mController.setPromptText("Enter OTP");
+            }
+        });
+        thread.start();
+        thread.join();
+        idle();
+
+        assertEquals(8, mPinPad.getPinLength());
+        assertEquals("Enter OTP", prompt());
+    }
+
+    private void press(int... digits) {
+        for (int digit : digits) {
+            mPinPad.getButtonForDigit(digit).performButtonClick();
+        }
+    }
+
+    private String prompt() {
+        return mPrompt.getText().toString();
+    }
+
+    private static void idle() {
+        shadowOf(Looper.getMainLooper()).idle();
+    }
+}
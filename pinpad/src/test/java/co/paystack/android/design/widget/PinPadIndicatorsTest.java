@@ -0,0 +1,133 @@
+package co.paystack.android.design.widget;
+
+import android.app.Activity;
+import android.view.View;
+import android.widget.LinearLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that changing the pin length keeps the existing indicators, only adding or removing
+ * the ones at the end, and that their spacing and filled state follow the new length.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class PinPadIndicatorsTest {
+    private PinPadView mPinPad;
+    private LinearLayout mIndicators;
+
+    @Before
+    public void setUp() {
+        Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        mPinPad = new PinPadView(activity);
+        mPinPad.setPlaceDigitsRandomly(false);
+        mPinPad.setAutoSubmit(false);
+        mPinPad.setPinLength(4);
+        mIndicators = (LinearLayout) mPinPad.findViewById(R.id.pstck_pinpad__indicator_layout);
+    }
+
+    @Test
+    public void growingPinLength_keepsExistingIndicators() {
+        View[] before = children();
+        mPinPad.setPinLength(6);
+
+        assertEquals(6, mIndicators.getChildCount());
+        for (int i = 0; i < before.length; i++) {
+            assertSame(before[i], mIndicators.getChildAt(i));
+        }
+        assertSpacing();
+    }
+
+    @Test
+    public void shrinkingPinLength_removesTrailingIndicators() {
+        mPinPad.setPinLength(6);
+        View[] before = children();
+        mPinPad.setPinLength(3);
+
+        assertEquals(3, mIndicators.getChildCount());
+        for (int i = 0; i < 3; i++) {
+            assertSame(before[i], mIndicators.getChildAt(i));
+        }
+        assertSpacing();
+    }
+
+    @Test
+    public void sameOrInvalidPinLength_leavesIndicatorsAlone() {
+        View[] before = children();
+        mPinPad.setPinLength(4);
+        mPinPad.setPinLength(-1);
+
+        assertEquals(4, mIndicators.getChildCount());
+        for (int i = 0; i < before.length; i++) {
+            assertSame(before[i], mIndicators.getChildAt(i));
+        }
+    }
+
+    @Test
+    public void growingPinLength_keepsEnteredDigitsFilled() {
+        mPinPad.getButtonForDigit(1).performButtonClick();
+        mPinPad.getButtonForDigit(2).performButtonClick();
+        mPinPad.setPinLength(6);
+
+        for (int i = 0; i < 6; i++) {
+            assertEquals(i < 2, indicator(i).isChecked());
+        }
+    }
+
+    @Test
+    public void shrinkingToZeroAndBack_rebuildsIndicators() {
+        mPinPad.setPinLength(0);
+        assertEquals(0, mIndicators.getChildCount());
+
+        mPinPad.setPinLength(4);
+        assertEquals(4, mIndicators.getChildCount());
+        for (int i = 0; i < 4; i++) {
+            assertFalse(indicator(i).isChecked());
+        }
+        assertSpacing();
+    }
+
+    /**
+     * Only the gaps between indicators are spaced: the first has no leading margin and the last no
+     * trailing margin, whichever indicator ends up last after a length change
+     */
+    private void assertSpacing() {
+        int count = mIndicators.getChildCount();
+        int spacing = params(0).rightMargin;
+        assertEquals(0, params(0).leftMargin);
+        assertEquals(0, params(count - 1).rightMargin);
+        for (int i = 1; i < count; i++) {
+            assertEquals(spacing, params(i).leftMargin);
+        }
+        for (int i = 0; i < count - 1; i++) {
+            assertEquals(spacing, params(i).rightMargin);
+        }
+        assertTrue(spacing >= 0);
+    }
+
+    private View[] children() {
+        View[] children = new View[mIndicators.getChildCount()];
+        for (int i = 0; i < children.length; i++) {
+            children[i] = mIndicators.getChildAt(i);
+        }
+        return children;
+    }
+
+    private Indicator indicator(int index) {
+        return (Indicator) mIndicators.getChildAt(index);
+    }
+
+    private LinearLayout.LayoutParams params(int index) {
+        return (LinearLayout.LayoutParams) mIndicators.getChildAt(index).getLayoutParams();
+    }
+}
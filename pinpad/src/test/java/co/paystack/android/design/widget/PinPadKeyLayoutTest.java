@@ -0,0 +1,148 @@
+package co.paystack.android.design.widget;
+
+import android.app.Activity;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks the slot tables of the {@link PinPadKeyLayout} presets, the validation of
+ * {@link PinPadKeyLayout.Builder} and the keys {@link PinPadView} builds from a layout.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class PinPadKeyLayoutTest {
+
+    @Test
+    public void phone_slots() {
+        PinPadKeyLayout layout = PinPadKeyLayout.PHONE;
+        assertEquals(3, layout.getColumnCount());
+        assertEquals(4, layout.getRowCount());
+        assertEquals(12, layout.getKeyCount());
+        assertEquals(0, layout.getSlotForDigit(1));
+        assertEquals(8, layout.getSlotForDigit(9));
+        assertEquals(10, layout.getSlotForDigit(0));
+        assertEquals(9, layout.getSlotForType(PinPadKeyLayout.KEY_BACK));
+        assertEquals(11, layout.getSlotForType(PinPadKeyLayout.KEY_DONE));
+        assertEquals(-1, layout.getSlotForType(PinPadKeyLayout.KEY_CLEAR));
+        assertEquals(3, layout.getRow(10));
+    }
+
+    @Test
+    public void calculator_slots() {
+        PinPadKeyLayout layout = PinPadKeyLayout.CALCULATOR;
+        assertEquals(12, layout.getKeyCount());
+        assertEquals(0, layout.getSlotForDigit(7));
+        assertEquals(6, layout.getSlotForDigit(1));
+        assertEquals(10, layout.getSlotForDigit(0));
+        assertEquals(2, layout.getRow(layout.getSlotForDigit(3)));
+        assertEquals(PinPadKeyLayout.KEY_DIGIT, layout.getKeyType(0));
+        assertEquals(7, layout.getDigit(0));
+    }
+
+    @Test
+    public void pos_slots() {
+        PinPadKeyLayout layout = PinPadKeyLayout.POS;
+        assertEquals(5, layout.getRowCount());
+        assertEquals(14, layout.getKeyCount());
+        assertEquals(9, layout.getSlotForType(PinPadKeyLayout.KEY_DOUBLE_ZERO));
+        assertEquals(10, layout.getSlotForDigit(0));
+        assertEquals(11, layout.getSlotForType(PinPadKeyLayout.KEY_BACK));
+        assertEquals(12, layout.getSlotForType(PinPadKeyLayout.KEY_CLEAR));
+        assertEquals(13, layout.getSlotForType(PinPadKeyLayout.KEY_DONE));
+        assertEquals(2, layout.getSpan(13));
+        assertEquals(4, layout.getRow(12));
+        assertEquals(4, layout.getRow(13));
+        assertEquals(-1, layout.getDigit(13));
+    }
+
+    @Test
+    public void builder_growsPastSixteenKeys() {
+        PinPadKeyLayout.Builder builder = new PinPadKeyLayout.Builder(3)
+                .addDigits(1, 2, 3, 4, 5, 6, 7, 8, 9)
+                .addKey(PinPadKeyLayout.KEY_BACK).addDigit(0).addKey(PinPadKeyLayout.KEY_DONE);
+        for (int i = 0; i < 6; i++) {
+            builder.addKey(PinPadKeyLayout.KEY_EMPTY);
+        }
+        PinPadKeyLayout layout = builder.build();
+        assertEquals(18, layout.getKeyCount());
+        assertEquals(6, layout.getRowCount());
+        assertEquals(PinPadKeyLayout.KEY_EMPTY, layout.getKeyType(17));
+        assertEquals(12, layout.getSlotForType(PinPadKeyLayout.KEY_EMPTY));
+    }
+
+    @Test
+    public void build_rejectsInvalidLayouts() {
+        assertRejected("digit 0 is missing", phoneWithoutLastRow()
+                .addKey(PinPadKeyLayout.KEY_BACK).addKey(PinPadKeyLayout.KEY_EMPTY).addKey(PinPadKeyLayout.KEY_DONE));
+        assertRejected("digit 1 appears twice", phoneWithoutLastRow()
+                .addKey(PinPadKeyLayout.KEY_BACK).addDigit(1).addKey(PinPadKeyLayout.KEY_DONE));
+        assertRejected("key type 1 appears twice", phoneWithoutLastRow()
+                .addKey(PinPadKeyLayout.KEY_BACK).addDigit(0).addKey(PinPadKeyLayout.KEY_BACK));
+        assertRejected("a back key and a done key are required", phoneWithoutLastRow()
+                .addKey(PinPadKeyLayout.KEY_EMPTY).addDigit(0).addKey(PinPadKeyLayout.KEY_DONE));
+        assertRejected("key 10 does not fit in its row", phoneWithoutLastRow()
+                .addKey(PinPadKeyLayout.KEY_BACK, 2).addDigit(0, 2).addKey(PinPadKeyLayout.KEY_DONE));
+        assertRejected("the last row is not full", phoneWithoutLastRow()
+                .addKey(PinPadKeyLayout.KEY_BACK).addDigit(0).addKey(PinPadKeyLayout.KEY_DONE)
+                .addKey(PinPadKeyLayout.KEY_EMPTY));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void builder_rejectsWideSpan() {
+        new PinPadKeyLayout.Builder(3).addKey(PinPadKeyLayout.KEY_DONE, 4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void builder_rejectsNonDigit() {
+        new PinPadKeyLayout.Builder(3).addDigit(10);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void builder_rejectsDigitAsKeyType() {
+        new PinPadKeyLayout.Builder(3).addKey(PinPadKeyLayout.KEY_DIGIT);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void builder_rejectsNoColumns() {
+        new PinPadKeyLayout.Builder(0);
+    }
+
+    @Test
+    public void setKeyLayout_keepsKeyIdsAndClearsEntry() {
+        Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        PinPadView pinPad = new PinPadView(activity);
+        pinPad.setAutoSubmit(false);
+        pinPad.setPlaceDigitsRandomly(false);
+        pinPad.getButtonForDigit(4).performButtonClick();
+        pinPad.getButtonForDigit(2).performButtonClick();
+        assertEquals(2, pinPad.getEnteredLength());
+
+        pinPad.setKeyLayout(PinPadKeyLayout.POS);
+        assertEquals(0, pinPad.getEnteredLength());
+        assertSame(pinPad.getButtonForDigit(7), pinPad.findViewById(R.id.pstck_pinpad__btn_7));
+        assertSame(pinPad.getButtonForDigit(0), pinPad.findViewById(R.id.pstck_pinpad__btn_0));
+        assertSame(pinPad.getBackButton(), pinPad.findViewById(R.id.pstck_pinpad__btn_back));
+        assertSame(pinPad.getDoneButton(), pinPad.findViewById(R.id.pstck_pinpad__btn_done));
+    }
+
+    private static PinPadKeyLayout.Builder phoneWithoutLastRow() {
+        return new PinPadKeyLayout.Builder(3).addDigits(1, 2, 3, 4, 5, 6, 7, 8, 9);
+    }
+
+    private static void assertRejected(String message, PinPadKeyLayout.Builder builder) {
+        try {
+            builder.build();
+            fail("expected " + message);
+        } catch (IllegalArgumentException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+}
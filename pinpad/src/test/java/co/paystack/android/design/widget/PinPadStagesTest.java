@@ -0,0 +1,226 @@
+package co.paystack.android.design.widget;
+
+import android.app.Activity;
+import android.widget.TextView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks multi-stage PIN flows: moving between stages, confirmation mismatches sending the flow
+ * back, restoring the pinpad afterwards, and the constant time comparison the confirmation uses.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class PinPadStagesTest {
+    private PinPadView mPinPad;
+    private TextView mPrompt;
+    private final List<String> mEvents = new ArrayList<>();
+    private String[] mPins;
+
+    private final PinPadView.OnStagesCompletedListener mListener = new PinPadView.OnStagesCompletedListener() {
+        @Override
+        public void onStageCompleted(int stage) {
+            mEvents.add("completed " + stage);
+        }
+
+        @Override
+        public void onStageMismatch(int stage) {
+            mEvents.add("mismatch " + stage);
+        }
+
+        @Override
+        public void onStagesCompleted(String[] pins) {
+            mEvents.add("done");
+            mPins = pins;
+        }
+    };
+
+    @Before
+    public void setUp() {
+        Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        mPinPad = new PinPadView(activity);
+        mPinPad.setPlaceDigitsRandomly(false);
+        mPinPad.setAutoSubmit(true);
+        mPinPad.setPinLength(4);
+        mPinPad.setPromptText("Enter PIN");
+        mPinPad.setOnSubmitListener(new PinPadView.OnSubmitListener() {
+            @Override
+            public void onCompleted(String pin) {
+                mEvents.add("submit " + pin);
+            }
+
+            @Override
+            public void onIncompleteSubmit(String pin) {
+                mEvents.add("incomplete " + pin);
+            }
+        });
+        mPrompt = (TextView) mPinPad.findViewById(R.id.pstck_pinpad__prompt);
+    }
+
+    @Test
+    public void stages_advanceAndComplete() {
+        startNewPinFlow();
+        assertEquals(0, mPinPad.getCurrentStage());
+        assertEquals("New PIN", prompt());
+        assertEquals(6, mPinPad.getPinLength());
+
+        enter("135790");
+        assertEquals(1, mPinPad.getCurrentStage());
+        assertEquals("Confirm PIN", prompt());
+        assertEquals(0, mPinPad.getEnteredLength());
+
+        enter("135790");
+        assertEquals(list("completed 0", "done"), mEvents);
+        assertArrayEquals(new String[]{"135790", "135790"}, mPins);
+    }
+
+    @Test
+    public void stages_restorePinPadWhenComplete() {
+        startNewPinFlow();
+        enter("135790");
+        enter("135790");
+
+        assertEquals("Enter PIN", prompt());
+        assertEquals(4, mPinPad.getPinLength());
+        assertEquals(0, mPinPad.getCurrentStage());
+
+        // entries go back to the submit listener
+        enter("2468");
+        assertEquals("submit 2468", mEvents.get(mEvents.size() - 1));
+    }
+
+    @Test
+    public void mismatch_goesBackToConfirmedStage() {
+        startNewPinFlow();
+        enter("135790");
+        enter("135791");
+
+        assertEquals(list("completed 0", "mismatch 1"), mEvents);
+        assertEquals(0, mPinPad.getCurrentStage());
+        assertEquals("New PIN", prompt());
+        assertEquals(0, mPinPad.getEnteredLength());
+
+        enter("112233");
+        enter("112233");
+        assertEquals(list("completed 0", "mismatch 1", "completed 0", "done"), mEvents);
+        assertArrayEquals(new String[]{"112233", "112233"}, mPins);
+    }
+
+    @Test
+    public void mismatch_onlyRewindsToTheConfirmedStage() {
+        mPinPad.startStages(mListener,
+                new PinEntryStage("Current PIN", 4),
+                new PinEntryStage("New PIN", 4),
+                new PinEntryStage("Confirm PIN", 4, 1));
+        enter("0000");
+        enter("1234");
+        enter("4321");
+
+        assertEquals(list("completed 0", "completed 1", "mismatch 2"), mEvents);
+        assertEquals(1, mPinPad.getCurrentStage());
+
+        enter("5678");
+        enter("5678");
+        assertArrayEquals(new String[]{"0000", "5678", "5678"}, mPins);
+    }
+
+    @Test
+    public void doneKey_submitsStageWithoutAutoSubmit() {
+        mPinPad.setAutoSubmit(false);
+        startNewPinFlow();
+        enter("135790");
+        assertEquals(0, mPinPad.getCurrentStage());
+
+        mPinPad.getDoneButton().performButtonClick();
+        assertEquals(1, mPinPad.getCurrentStage());
+        assertEquals(list("completed 0"), mEvents);
+    }
+
+    @Test
+    public void cancelStages_restoresPinPad() {
+        startNewPinFlow();
+        enter("135");
+        mPinPad.cancelStages();
+
+        assertEquals("Enter PIN", prompt());
+        assertEquals(4, mPinPad.getPinLength());
+        assertEquals(0, mPinPad.getEnteredLength());
+        assertNull(mPins);
+        assertTrue(mEvents.isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void startStages_rejectsConfirmingLaterStage() {
+        mPinPad.startStages(mListener,
+                new PinEntryStage("New PIN", 4, 1),
+                new PinEntryStage("Confirm PIN", 4));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void startStages_rejectsConfirmingDifferentLength() {
+        mPinPad.startStages(mListener,
+                new PinEntryStage("New PIN", 4),
+                new PinEntryStage("Confirm PIN", 6, 0));
+    }
+
+    @Test
+    public void constantTimeEquals_detectsDifferenceAtEveryPosition() {
+        char[] pin = "135790".toCharArray();
+        for (int i = 0; i < pin.length; i++) {
+            char[] other = pin.clone();
+            other[i]++;
+            assertFalse(SecureChars.constantTimeEquals(pin, other));
+        }
+        assertTrue(SecureChars.constantTimeEquals(pin, pin.clone()));
+        assertTrue(SecureChars.constantTimeEquals(new char[0], new char[0]));
+    }
+
+    @Test
+    public void wipe_clearsBuffers() {
+        char[] chars = "2580".toCharArray();
+        SecureChars.wipe(chars);
+        assertArrayEquals(new char[4], chars);
+
+        StringBuilder builder = new StringBuilder("2580");
+        SecureChars.wipe(builder);
+        assertEquals(0, builder.length());
+    }
+
+    private void startNewPinFlow() {
+        mPinPad.startStages(mListener,
+                new PinEntryStage("New PIN", 6),
+                new PinEntryStage("Confirm PIN", 6, 0));
+    }
+
+    private void enter(String digits) {
+        for (int i = 0; i < digits.length(); i++) {
+            mPinPad.getButtonForDigit(digits.charAt(i) - '0').performButtonClick();
+        }
+    }
+
+    private String prompt() {
+        return mPrompt.getText().toString();
+    }
+
+    private static List<String> list(String... events) {
+        List<String> list = new ArrayList<>();
+        for (String event : events) {
+            list.add(event);
+        }
+        return list;
+    }
+}
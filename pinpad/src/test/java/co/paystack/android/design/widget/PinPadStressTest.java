@@ -0,0 +1,330 @@
+package co.paystack.android.design.widget;
+
+import android.app.Activity;
+import android.content.Context;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.os.Vibrator;
+import android.view.MotionEvent;
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowVibrator;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Hammers a {@link PinPadView} with synthetic touch sequences: digits, overflow taps, backspace
+ * on an empty pin, done on incomplete pins, rolled two-finger taps, reshuffles and pin length
+ * changes. Touches go through the pinpad's own dispatchTouchEvent at the keys' laid out
+ * positions, so the pinpad and its rows route them as they would on a device. Every callback and
+ * every error vibration is checked against a model of the pad, and throughput, allocation and
+ * GC counts are printed for comparison across versions.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class PinPadStressTest {
+    private static final int SEQUENCES = 20000;
+    private static final long SEED = 20240611L;
+    private static final int RESHUFFLE_EVERY = 97;
+    private static final int PIN_LENGTH_EVERY = 1009;
+
+    /**
+     * Kinds of expected callbacks besides the OnPinEventListener types
+     */
+    private static final int KIND_CHANGED = 10;
+    private static final int KIND_COMPLETED = 11;
+    private static final int KIND_INCOMPLETE = 12;
+
+    private static final int MAX_EXPECTED = 16;
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1920;
+
+    private PinPadView mPinPad;
+    private Vibrator mVibrator;
+    private ShadowVibrator mShadowVibrator;
+    private final Random mRandom = new Random(SEED);
+    private final int[] mPinPadLocation = new int[2];
+    private final int[] mKeyLocation = new int[2];
+
+    /**
+     * Callbacks the current sequence should produce, in order
+     */
+    private final int[] mExpectedKinds = new int[MAX_EXPECTED];
+    private final int[] mExpectedLengths = new int[MAX_EXPECTED];
+    private int mExpectedCount;
+    private int mExpectedNext;
+    private boolean mExpectVibration;
+
+    private int mModelLength;
+    private String mLastNewPin = "";
+    private int mViolations;
+    private String mFirstViolation;
+
+    @Before
+    public void setUp() {
+        Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        mPinPad = new PinPadView(activity);
+        activity.setContentView(mPinPad);
+        mVibrator = (Vibrator) activity.getSystemService(Context.VIBRATOR_SERVICE);
+        mShadowVibrator = shadowOf(mVibrator);
+
+        mPinPad.setAutoSubmit(false);
+        mPinPad.setPinLength(4);
+        mPinPad.addOnPinEventListener(new PinPadView.OnPinEventListener() {
+            @Override
+            public void onPinEvent(int type, int length, long timestampNanos) {
+                check(type, length);
+            }
+        }, false);
+        mPinPad.setOnPinChangedListener(new PinPadView.OnPinChangedListener() {
+            @Override
+            public void onPinChanged(String oldPin, String newPin) {
+                check(KIND_CHANGED, newPin.length());
+                if (!oldPin.equals(mLastNewPin)) {
+                    violation("pin changes out of order", KIND_CHANGED, oldPin.length());
+                }
+                mLastNewPin = newPin;
+            }
+        });
+        mPinPad.setOnSubmitListener(new PinPadView.OnSubmitListener() {
+            @Override
+            public void onCompleted(String pin) {
+                check(KIND_COMPLETED, pin.length());
+                // clearing from the callback is queued behind the submit
+                mPinPad.clear();
+            }
+
+            @Override
+            public void onIncompleteSubmit(String pin) {
+                check(KIND_INCOMPLETE, pin.length());
+            }
+        });
+        layOut();
+    }
+
+    @Test
+    public void sustainedInput_keepsListenerOrder() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long allocatedBefore = allocatedBytes(threads);
+        long gcCountBefore = gcCount();
+        long gcTimeBefore = gcTime();
+        long start = System.nanoTime();
+
+        for (int i = 0; i < SEQUENCES; i++) {
+            if (i % RESHUFFLE_EVERY == 0) {
+                mPinPad.setPlaceDigitsRandomly(true);
+            }
+            if (i % PIN_LENGTH_EVERY == 0) {
+                mPinPad.setPinLength(4 + mRandom.nextInt(5));
+                layOut();
+            }
+            mVibrator.cancel();
+            runSequence(mRandom.nextInt(10));
+            if (mExpectedNext != mExpectedCount) {
+                violation("missing callback", mExpectedKinds[mExpectedNext], mExpectedLengths[mExpectedNext]);
+            }
+            if (mShadowVibrator.isVibrating() != mExpectVibration) {
+                violation(mExpectVibration ? "missing vibration" : "unexpected vibration", -1, mModelLength);
+            }
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        long allocated = allocatedBytes(threads) - allocatedBefore;
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("PinPadStressTest: %d sequences in %.2f s (%.0f/s)%n",
+                SEQUENCES, seconds, SEQUENCES / seconds);
+        if (allocatedBefore >= 0) {
+            System.out.printf("PinPadStressTest: %.1f KB allocated per sequence, %.1f MB/s%n",
+                    allocated / 1024.0 / SEQUENCES, allocated / 1048576.0 / seconds);
+        }
+        System.out.printf("PinPadStressTest: %d GCs, %d ms in GC%n",
+                gcCount() - gcCountBefore, gcTime() - gcTimeBefore);
+
+        assertEquals("listener order violations, first: " + mFirstViolation, 0, mViolations);
+        assertEquals(mModelLength, mPinPad.getEnteredLength());
+    }
+
+    /**
+     * Lets the window lay the pinpad out, so key positions are real; measures it directly if
+     * no traversal ran
+     */
+    private void layOut() {
+        shadowOf(Looper.getMainLooper()).idle();
+        if (mPinPad.getWidth() == 0 || mPinPad.isLayoutRequested()) {
+            mPinPad.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                    View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+            mPinPad.layout(0, 0, WIDTH, HEIGHT);
+        }
+    }
+
+    /**
+     * Runs one touch sequence and records the callbacks it should produce
+     *
+     * @param kind - picks the sequence
+     */
+    private void runSequence(int kind) {
+        mExpectedCount = 0;
+        mExpectedNext = 0;
+        mExpectVibration = false;
+        if (kind < 6) {
+            // digit, or an overflow tap that only vibrates once the pin is full
+            expectDigit();
+            tap(mPinPad.getButtonForDigit(mRandom.nextInt(10)));
+        } else if (kind == 6) {
+            // rolled two-finger tap, lifted out of order; keys commit in press order
+            PinPadButton first = mPinPad.getButtonForDigit(mRandom.nextInt(10));
+            PinPadButton second = mPinPad.getButtonForDigit(mRandom.nextInt(10));
+            expectDigit();
+            if (first == second) {
+                second = mPinPad.getBackButton();
+                expectBack();
+            } else {
+                expectDigit();
+            }
+            long downTime = SystemClock.uptimeMillis();
+            touch(downTime, MotionEvent.ACTION_DOWN, 0, first);
+            touch(downTime, MotionEvent.ACTION_POINTER_DOWN, 1, first, second);
+            touch(downTime, MotionEvent.ACTION_POINTER_UP, 1, first, second);
+            touch(downTime, MotionEvent.ACTION_UP, 0, first);
+        } else if (kind < 9) {
+            // backspace, often on an empty pin
+            expectBack();
+            tap(mPinPad.getBackButton());
+        } else {
+            // done, usually on an incomplete pin
+            if (mModelLength == mPinPad.getPinLength()) {
+                expect(PinPadView.OnPinEventListener.TYPE_SUBMITTED, mModelLength);
+                expect(KIND_COMPLETED, mModelLength);
+                mModelLength = 0;
+                expect(PinPadView.OnPinEventListener.TYPE_CLEARED, 0);
+                expect(KIND_CHANGED, 0);
+            } else {
+                mExpectVibration = true;
+                expect(PinPadView.OnPinEventListener.TYPE_INCOMPLETE_SUBMIT, mModelLength);
+                expect(KIND_INCOMPLETE, mModelLength);
+            }
+            tap(mPinPad.getDoneButton());
+        }
+    }
+
+    private void expectDigit() {
+        if (mModelLength < mPinPad.getPinLength()) {
+            mModelLength++;
+            expect(PinPadView.OnPinEventListener.TYPE_DIGIT_ADDED, mModelLength);
+            expect(KIND_CHANGED, mModelLength);
+        } else {
+            // overflow tap
+            mExpectVibration = true;
+        }
+    }
+
+    private void expectBack() {
+        if (mModelLength > 0) {
+            mModelLength--;
+            expect(PinPadView.OnPinEventListener.TYPE_DIGIT_REMOVED, mModelLength);
+            expect(KIND_CHANGED, mModelLength);
+        } else {
+            // backspace on an empty pin
+            mExpectVibration = true;
+        }
+    }
+
+    private void expect(int kind, int length) {
+        mExpectedKinds[mExpectedCount] = kind;
+        mExpectedLengths[mExpectedCount] = length;
+        mExpectedCount++;
+    }
+
+    private void check(int kind, int length) {
+        if (mExpectedNext == mExpectedCount) {
+            violation("unexpected callback", kind, length);
+            return;
+        }
+        if (mExpectedKinds[mExpectedNext] != kind || mExpectedLengths[mExpectedNext] != length) {
+            violation("wrong callback", kind, length);
+        }
+        mExpectedNext++;
+    }
+
+    private void violation(String message, int kind, int length) {
+        if (mViolations++ == 0) {
+            mFirstViolation = message + " " + kind + "/" + length;
+        }
+    }
+
+    private void tap(PinPadButton button) {
+        long downTime = SystemClock.uptimeMillis();
+        touch(downTime, MotionEvent.ACTION_DOWN, 0, button);
+        touch(downTime, MotionEvent.ACTION_UP, 0, button);
+    }
+
+    /**
+     * Dispatches a touch to the pinpad with one pointer on each key, pointer ids counting from 0
+     *
+     * @param action       - ACTION_ constant, without the pointer index
+     * @param pointerIndex - index of the pointer going down or up, for the POINTER_ actions
+     * @param keys         - key under each pointer
+     */
+    private void touch(long downTime, int action, int pointerIndex, PinPadButton... keys) {
+        mPinPad.getLocationInWindow(mPinPadLocation);
+        MotionEvent.PointerProperties[] properties = new MotionEvent.PointerProperties[keys.length];
+        MotionEvent.PointerCoords[] coords = new MotionEvent.PointerCoords[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            properties[i] = new MotionEvent.PointerProperties();
+            properties[i].id = i;
+            properties[i].toolType = MotionEvent.TOOL_TYPE_FINGER;
+            keys[i].getLocationInWindow(mKeyLocation);
+            coords[i] = new MotionEvent.PointerCoords();
+            coords[i].x = mKeyLocation[0] - mPinPadLocation[0] + keys[i].getWidth() / 2f;
+            coords[i].y = mKeyLocation[1] - mPinPadLocation[1] + keys[i].getHeight() / 2f;
+            coords[i].pressure = 1f;
+            coords[i].size = 1f;
+        }
+        if (action == MotionEvent.ACTION_POINTER_DOWN || action == MotionEvent.ACTION_POINTER_UP) {
+            action |= pointerIndex << MotionEvent.ACTION_POINTER_INDEX_SHIFT;
+        }
+        MotionEvent event = MotionEvent.obtain(downTime, SystemClock.uptimeMillis(), action,
+                keys.length, properties, coords, 0, 0, 1f, 1f, 0, 0, 0, 0);
+        mPinPad.dispatchTouchEvent(event);
+        event.recycle();
+    }
+
+    /**
+     * @return bytes allocated by this thread so far, or -1 if the JVM does not report it
+     */
+    private static long allocatedBytes(ThreadMXBean threads) {
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(
+                    Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, bean.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcTime() {
+        long time = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            time += Math.max(0, bean.getCollectionTime());
+        }
+        return time;
+    }
+}
@@ -0,0 +1,138 @@
+package co.paystack.android.design.widget;
+
+import android.os.Looper;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Checks {@link PinVerifier} hashes, results delivered on the main looper and the constant time
+ * comparisons of {@link SecureChars}.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class PinVerifierTest {
+    private static final int ITERATIONS = 1000;
+    private static final long TIMEOUT_MS = 10000;
+
+    private final byte[] mSalt = PinVerifier.generateSalt();
+    private Boolean mResult;
+
+    @Test
+    public void hash_matchesPbkdf2KeyFactory() throws Exception {
+        char[] pin = "482916".toCharArray();
+        byte[] expected = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256")
+                .generateSecret(new PBEKeySpec(pin, mSalt, ITERATIONS, 32 * 8)).getEncoded();
+        assertArrayEquals(expected, PinVerifier.hash(pin, mSalt, ITERATIONS));
+    }
+
+    @Test
+    public void hash_isOneSha256Block() {
+        assertEquals(32, PinVerifier.HASH_LENGTH);
+        assertEquals(PinVerifier.HASH_LENGTH, PinVerifier.hash("1".toCharArray(), mSalt, 1).length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_rejectsSha1LengthHash() {
+        new PinVerifier(mSalt, new byte[20], ITERATIONS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_rejectsLongHash() {
+        new PinVerifier(mSalt, new byte[64], ITERATIONS);
+    }
+
+    @Test
+    public void verify_matchingPin() throws Exception {
+        PinVerifier verifier = verifierFor("1234");
+        assertTrue(verify(verifier, "1234"));
+        // a second verification reuses the mac
+        assertTrue(verify(verifier, "1234"));
+    }
+
+    @Test
+    public void verify_wrongPin() throws Exception {
+        PinVerifier verifier = verifierFor("1234");
+        assertFalse(verify(verifier, "1235"));
+        assertFalse(verify(verifier, "12345"));
+        assertTrue(verify(verifier, "1234"));
+    }
+
+    @Test
+    public void verify_copiesThePin() throws Exception {
+        PinVerifier verifier = verifierFor("1234");
+        char[] pin = "1234".toCharArray();
+        mResult = null;
+        verifier.verify(pin, callback());
+        SecureChars.wipe(pin);
+        assertTrue(awaitResult());
+    }
+
+    @Test
+    public void constantTimeEquals_bytes() {
+        assertTrue(SecureChars.constantTimeEquals(new byte[]{1, 2, 3}, new byte[]{1, 2, 3}));
+        assertFalse(SecureChars.constantTimeEquals(new byte[]{1, 2, 3}, new byte[]{1, 2, 4}));
+        assertFalse(SecureChars.constantTimeEquals(new byte[]{1, 2, 3}, new byte[]{1, 2}));
+        assertTrue(SecureChars.constantTimeEquals(new byte[0], new byte[0]));
+    }
+
+    @Test
+    public void constantTimeEquals_chars() {
+        assertTrue(SecureChars.constantTimeEquals("2580".toCharArray(), "2580".toCharArray()));
+        assertFalse(SecureChars.constantTimeEquals("2580".toCharArray(), "2581".toCharArray()));
+        assertFalse(SecureChars.constantTimeEquals("2580".toCharArray(), "258".toCharArray()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_rejectsEmptyHash() {
+        new PinVerifier(mSalt, new byte[0], ITERATIONS);
+    }
+
+    private PinVerifier verifierFor(String pin) {
+        byte[] hash = PinVerifier.hash(pin.toCharArray(), mSalt, ITERATIONS);
+        assertEquals(32, hash.length);
+        return new PinVerifier(mSalt, hash, ITERATIONS);
+    }
+
+    private boolean verify(PinVerifier verifier, String pin) throws InterruptedException {
+        mResult = null;
+        verifier.verify(pin.toCharArray(), callback());
+        return awaitResult();
+    }
+
+    private PinVerifier.Callback callback() {
+        return new PinVerifier.Callback() {
+            @Override
+            public void onResult(boolean matches) {
+                assertEquals(Looper.getMainLooper(), Looper.myLooper());
+                mResult = matches;
+            }
+        };
+    }
+
+    /**
+     * Runs the main looper until the background check posts its result
+     */
+    private boolean awaitResult() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (mResult == null) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("no result delivered");
+            }
+            Thread.sleep(5);
+            shadowOf(Looper.getMainLooper()).idle();
+        }
+        return mResult;
+    }
+}